@@ -0,0 +1,88 @@
+package com.ahirajustice.lib.configserver.benchmarks;
+
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.PublicKey;
+import java.security.SecureRandom;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.Base64;
+
+public class BenchmarkKeys {
+
+    private final KeyPair keyPair;
+
+    private BenchmarkKeys(KeyPair keyPair) {
+        this.keyPair = keyPair;
+    }
+
+    public static BenchmarkKeys generate() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+
+        return new BenchmarkKeys(generator.generateKeyPair());
+    }
+
+    public String getPrivateKey() {
+        return Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded());
+    }
+
+    public PublicKey getPublicKey() {
+        return keyPair.getPublic();
+    }
+
+    public String encrypt(String value) throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA");
+        cipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+
+        return Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public Envelope newEnvelope() throws Exception {
+        KeyGenerator generator = KeyGenerator.getInstance("AES");
+        generator.init(256);
+        SecretKey dataKey = generator.generateKey();
+
+        Cipher wrapCipher = Cipher.getInstance("RSA/ECB/OAEPPadding");
+        wrapCipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic(), new OAEPParameterSpec(
+                "SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT
+        ));
+
+        return new Envelope(dataKey, Base64.getEncoder().encodeToString(wrapCipher.doFinal(dataKey.getEncoded())));
+    }
+
+    public static class Envelope {
+
+        private final SecureRandom random = new SecureRandom();
+        private final SecretKey dataKey;
+        private final String wrappedKey;
+
+        private Envelope(SecretKey dataKey, String wrappedKey) {
+            this.dataKey = dataKey;
+            this.wrappedKey = wrappedKey;
+        }
+
+        public String encrypt(String value) throws Exception {
+            byte[] iv = new byte[12];
+            random.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, dataKey, new GCMParameterSpec(128, iv));
+            byte[] cipherText = cipher.doFinal(value.getBytes(StandardCharsets.UTF_8));
+
+            return CipherUtils.ENVELOPE_PREFIX + wrappedKey
+                    + ":" + Base64.getEncoder().encodeToString(iv)
+                    + ":" + Base64.getEncoder().encodeToString(cipherText);
+        }
+
+    }
+
+}
@@ -0,0 +1,93 @@
+package com.ahirajustice.lib.configserver.benchmarks;
+
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.crypto.Cipher;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyFactory;
+import java.security.PrivateKey;
+import java.security.spec.PKCS8EncodedKeySpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the per-entry cost of decrypting config values the way CipherUtils used to (key parsing and
+ * Cipher creation per value) against the cached key and thread-confined Cipher path, and the cost of
+ * decrypting a whole config with decryptAll.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CipherUtilsBenchmark {
+
+    @Param({"300"})
+    private int entryCount;
+
+    private String privateKey;
+    private List<ConfigEntry> configEntries;
+    private int next;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkKeys keys = BenchmarkKeys.generate();
+
+        privateKey = keys.getPrivateKey();
+        configEntries = new ArrayList<>();
+
+        for (int i = 0; i < entryCount; i++) {
+            ConfigEntry entry = new ConfigEntry();
+            entry.setConfigKey("SECRET_" + i);
+            entry.setConfigValue(keys.encrypt("secret-value-" + i));
+            entry.setEncrypted(true);
+            configEntries.add(entry);
+        }
+    }
+
+    @Benchmark
+    public String uncachedDecryptEntry() throws Exception {
+        byte[] privateKeyBytes = Base64.getDecoder().decode(privateKey);
+        PrivateKey key = KeyFactory.getInstance("RSA").generatePrivate(new PKCS8EncodedKeySpec(privateKeyBytes));
+
+        Cipher cipher = Cipher.getInstance("RSA");
+        cipher.init(Cipher.DECRYPT_MODE, key);
+
+        byte[] decrypted = cipher.doFinal(Base64.getDecoder().decode(nextEntry().getConfigValue()));
+        return new String(decrypted, StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public String cachedDecryptEntry() {
+        return CipherUtils.decryptString(nextEntry().getConfigValue(), privateKey);
+    }
+
+    @Benchmark
+    public Map<String, String> decryptAll() {
+        return CipherUtils.decryptAll(configEntries, privateKey);
+    }
+
+    private ConfigEntry nextEntry() {
+        ConfigEntry entry = configEntries.get(next);
+        next = (next + 1) % configEntries.size();
+
+        return entry;
+    }
+
+}
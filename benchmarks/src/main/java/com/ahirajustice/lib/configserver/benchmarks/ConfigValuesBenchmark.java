@@ -0,0 +1,115 @@
+package com.ahirajustice.lib.configserver.benchmarks;
+
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import com.ahirajustice.lib.configserver.values.ConfigValue;
+import com.ahirajustice.lib.configserver.values.ConfigValueRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.convert.ApplicationConversionService;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading typed config values on a hot path through Spring's Environment, which walks the
+ * property sources and converts the string on every read, against handles into the published
+ * {@link com.ahirajustice.lib.configserver.values.ConfigValues} snapshot, parsed once per refresh. The
+ * environment is laid out as in an application using the MEMORY backend: the config-server property
+ * source first, then system properties, environment variables and application properties.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConfigValuesBenchmark {
+
+    @Param({"200"})
+    private int keyCount;
+
+    private StandardEnvironment environment;
+    private ConfigValueRegistry registry;
+    private ConfigValue<Integer> rateLimit;
+    private ConfigValue<Duration> requestTimeout;
+    private ConfigValue<Boolean> featureEnabled;
+
+    @Setup
+    public void setup() {
+        Map<String, Object> config = new HashMap<>();
+        for (int i = 0; i < keyCount; i++) {
+            config.put("KEY_" + i, "value-" + i);
+        }
+        config.put("RATE_LIMIT", "200");
+        config.put("REQUEST_TIMEOUT", "30s");
+        config.put("FEATURE_ENABLED", "true");
+
+        Map<String, Object> applicationProperties = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            applicationProperties.put("app.property." + i, "value-" + i);
+        }
+
+        environment = new StandardEnvironment();
+        environment.setConversionService(new ApplicationConversionService());
+        environment.getPropertySources().addFirst(new MapPropertySource("configServer", config));
+        environment.getPropertySources().addLast(new MapPropertySource("applicationConfig", applicationProperties));
+
+        Map<String, String> values = new HashMap<>();
+        config.forEach((key, value) -> values.put(key, (String) value));
+
+        registry = new ConfigValueRegistry();
+        registry.publish("1", values, LazySecrets.EMPTY);
+        rateLimit = registry.intValue("RATE_LIMIT", 100);
+        requestTimeout = registry.durationValue("REQUEST_TIMEOUT", Duration.ofSeconds(10));
+        featureEnabled = registry.booleanValue("FEATURE_ENABLED", false);
+    }
+
+    @Benchmark
+    public Integer environmentInt() {
+        return environment.getProperty("RATE_LIMIT", Integer.class);
+    }
+
+    @Benchmark
+    public Duration environmentDuration() {
+        return environment.getProperty("REQUEST_TIMEOUT", Duration.class);
+    }
+
+    @Benchmark
+    public Boolean environmentBoolean() {
+        return environment.getProperty("FEATURE_ENABLED", Boolean.class);
+    }
+
+    @Benchmark
+    public int snapshotLookupInt() {
+        return Integer.parseInt(registry.getCurrent().get("RATE_LIMIT"));
+    }
+
+    @Benchmark
+    public Integer handleInt() {
+        return rateLimit.get();
+    }
+
+    @Benchmark
+    public Duration handleDuration() {
+        return requestTimeout.get();
+    }
+
+    @Benchmark
+    public Boolean handleBoolean() {
+        return featureEnabled.get();
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.ahirajustice.lib.configserver.benchmarks;
+
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the throughput of decrypting a payload of secrets encrypted with RSA per value against the
+ * same secrets envelope encrypted with AES-GCM under one RSA-wrapped data key.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EnvelopeEncryptionBenchmark {
+
+    @Param({"1000"})
+    private int secretCount;
+
+    private String privateKey;
+    private List<ConfigEntry> rsaEntries;
+    private List<ConfigEntry> envelopeEntries;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkKeys keys = BenchmarkKeys.generate();
+        BenchmarkKeys.Envelope envelope = keys.newEnvelope();
+
+        privateKey = keys.getPrivateKey();
+        rsaEntries = new ArrayList<>();
+        envelopeEntries = new ArrayList<>();
+
+        for (int i = 0; i < secretCount; i++) {
+            String value = "secret-value-" + i;
+            rsaEntries.add(entry(i, keys.encrypt(value)));
+            envelopeEntries.add(entry(i, envelope.encrypt(value)));
+        }
+    }
+
+    @Benchmark
+    public Map<String, String> rsaPayload() {
+        return CipherUtils.decryptAll(rsaEntries, privateKey);
+    }
+
+    @Benchmark
+    public Map<String, String> envelopePayload() {
+        return CipherUtils.decryptAll(envelopeEntries, privateKey);
+    }
+
+    private static ConfigEntry entry(int index, String value) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey("SECRET_" + index);
+        entry.setConfigValue(value);
+        entry.setEncrypted(true);
+
+        return entry;
+    }
+
+}
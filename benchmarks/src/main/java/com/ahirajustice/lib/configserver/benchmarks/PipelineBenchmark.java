@@ -0,0 +1,231 @@
+package com.ahirajustice.lib.configserver.benchmarks;
+
+import com.ahirajustice.lib.configserver.client.ConfigClient;
+import com.ahirajustice.lib.configserver.http.ConfigServerHttpClient;
+import com.ahirajustice.lib.configserver.models.ConfigDiff;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResult;
+import com.ahirajustice.lib.configserver.models.HttpClientSettings;
+import com.ahirajustice.lib.configserver.refresh.HotRefresher;
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+import com.ahirajustice.lib.configserver.utils.FileUtils;
+import com.ahirajustice.lib.configserver.utils.PropertySourceUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpServer;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.MapPropertySource;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures each stage of applying config, and the whole pipeline, for a range of config shapes:
+ * fetching and parsing the payload from a local stub server, decrypting (envelope encrypted) values,
+ * persisting the .env file, hot applying a changed config to a running context, and restarting a minimal
+ * context with the config. Run with -prof gc for allocation rates; SampleTime reports p99 latency.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    @Param({"100", "1000"})
+    private int entryCount;
+
+    @Param({"64", "1024"})
+    private int valueSize;
+
+    @Param({"0.0", "0.25"})
+    private double encryptedRatio;
+
+    private HttpServer server;
+    private ConfigClient client;
+    private String privateKey;
+    private Path dotenv;
+
+    private List<ConfigEntry> entries;
+    private Map<String, String> config;
+    private Map<String, String> changedConfig;
+    private ConfigurableApplicationContext context;
+    private boolean changed;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkKeys keys = BenchmarkKeys.generate();
+        BenchmarkKeys.Envelope envelope = keys.newEnvelope();
+        privateKey = keys.getPrivateKey();
+
+        Random random = new Random(42);
+        entries = new ArrayList<>();
+        List<ConfigEntry> changedEntries = new ArrayList<>();
+
+        for (int i = 0; i < entryCount; i++) {
+            boolean encrypted = random.nextDouble() < encryptedRatio;
+            String value = value(random);
+
+            entries.add(entry(i, encrypted ? envelope.encrypt(value) : value, encrypted));
+            changedEntries.add(entry(i, value(random), false));
+        }
+
+        byte[] payload = new ObjectMapper().writeValueAsBytes(entries);
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/api/configs/fetch", exchange -> {
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, payload.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(payload);
+            }
+        });
+        server.start();
+
+        ConfigServerHttpClient httpClient = new ConfigServerHttpClient(HttpClientSettings.builder()
+                .connectTimeoutMs(5000)
+                .readTimeoutMs(30000)
+                .maxConnections(4)
+                .maxRetries(0)
+                .retryBackoffMs(0)
+                .retryMaxBackoffMs(0)
+                .circuitBreakerThreshold(0)
+                .circuitBreakerCooldownMs(0)
+                .build());
+        client = new ConfigClient("benchmark", String.format("http://localhost:%d", server.getAddress().getPort()), "benchmark", null, httpClient, null);
+
+        dotenv = Files.createTempDirectory("config-server-benchmark").resolve(".env");
+        config = CipherUtils.decryptAll(entries, privateKey);
+        changedConfig = CipherUtils.decryptAll(changedEntries, privateKey);
+        context = startContext(config);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        context.close();
+        server.stop(0);
+        Files.deleteIfExists(dotenv);
+        Files.deleteIfExists(dotenv.getParent());
+    }
+
+    @Benchmark
+    public ConfigFetchResult fetch() {
+        return client.fetch();
+    }
+
+    @Benchmark
+    public Map<String, String> decrypt() {
+        return CipherUtils.decryptAll(entries, privateKey);
+    }
+
+    @Benchmark
+    public Path persist() throws IOException {
+        FileUtils.writeDotenv(dotenv, config);
+        return dotenv;
+    }
+
+    /**
+     * Alternates between two configs that differ in every value, so each call hot applies a full diff.
+     */
+    @Benchmark
+    public ConfigDiff apply() {
+        Map<String, String> previous = changed ? changedConfig : config;
+        Map<String, String> next = changed ? config : changedConfig;
+        changed = !changed;
+
+        ConfigDiff diff = ConfigDiff.between(previous, next, key -> false);
+        HotRefresher.apply(context, diff, LazySecrets.EMPTY);
+
+        return diff;
+    }
+
+    @Benchmark
+    public void restart() {
+        startContext(config).close();
+    }
+
+    @Benchmark
+    public Map<String, String> pipeline() throws IOException {
+        List<ConfigEntry> fetched = client.fetch().getConfigEntries();
+        Map<String, String> decrypted = CipherUtils.decryptAll(fetched, privateKey);
+        FileUtils.writeDotenv(dotenv, decrypted);
+        HotRefresher.apply(context, ConfigDiff.between(changed ? changedConfig : config, decrypted, key -> false), LazySecrets.EMPTY);
+        changed = false;
+
+        return decrypted;
+    }
+
+    private static ConfigurableApplicationContext startContext(Map<String, String> config) {
+        AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext();
+        applicationContext.getEnvironment().getPropertySources().addFirst(new MapPropertySource("configServer", PropertySourceUtils.toProperties(config)));
+        applicationContext.register(BenchmarkConfiguration.class);
+        applicationContext.refresh();
+
+        return applicationContext;
+    }
+
+    private String value(Random random) {
+        char[] value = new char[valueSize];
+        Arrays.fill(value, (char) ('a' + random.nextInt(26)));
+
+        return new String(value);
+    }
+
+    private static ConfigEntry entry(int index, String value, boolean encrypted) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey("KEY_" + index);
+        entry.setConfigValue(value);
+        entry.setEncrypted(encrypted);
+
+        return entry;
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(BenchmarkProperties.class)
+    public static class BenchmarkConfiguration {
+
+    }
+
+    @ConfigurationProperties(prefix = "key")
+    public static class BenchmarkProperties {
+
+        private Map<String, String> values = new HashMap<>();
+
+        public Map<String, String> getValues() {
+            return values;
+        }
+
+        public void setValues(Map<String, String> values) {
+            this.values = values;
+        }
+
+    }
+
+}
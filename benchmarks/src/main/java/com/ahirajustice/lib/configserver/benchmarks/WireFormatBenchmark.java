@@ -0,0 +1,101 @@
+package com.ahirajustice.lib.configserver.benchmarks;
+
+import com.ahirajustice.lib.configserver.enums.WireFormat;
+import com.ahirajustice.lib.configserver.http.BinaryConfigCodec;
+import com.ahirajustice.lib.configserver.http.ConfigResponseReader;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResponse;
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares reading, and reading then decrypting, a config fetch response in the JSON and the binary wire
+ * format. Payload sizes are printed during setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    @Param({"JSON", "BINARY"})
+    private WireFormat format;
+
+    @Param({"1000"})
+    private int entryCount;
+
+    @Param({"0.0", "0.25"})
+    private double encryptedRatio;
+
+    private byte[] payload;
+    private MediaType contentType;
+    private String privateKey;
+
+    @Setup
+    public void setup() throws Exception {
+        BenchmarkKeys keys = BenchmarkKeys.generate();
+        BenchmarkKeys.Envelope envelope = keys.newEnvelope();
+        privateKey = keys.getPrivateKey();
+
+        Random random = new Random(42);
+        List<ConfigEntry> entries = new ArrayList<>();
+
+        for (int i = 0; i < entryCount; i++) {
+            boolean encrypted = random.nextDouble() < encryptedRatio;
+            String value = "value-" + i + "-" + Long.toHexString(random.nextLong()) + Long.toHexString(random.nextLong());
+
+            ConfigEntry entry = new ConfigEntry();
+            entry.setConfigKey("KEY_" + i);
+            entry.setConfigValue(encrypted ? envelope.encrypt(value) : value);
+            entry.setEncrypted(encrypted);
+            entries.add(entry);
+        }
+
+        if (format == WireFormat.BINARY) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            BinaryConfigCodec.write(out, entries);
+            payload = out.toByteArray();
+            contentType = BinaryConfigCodec.MEDIA_TYPE;
+        }
+        else {
+            payload = new ObjectMapper().writeValueAsBytes(entries);
+            contentType = MediaType.APPLICATION_JSON;
+        }
+
+        System.out.printf("%n%s payload: %d bytes%n", format, payload.length);
+    }
+
+    @Benchmark
+    public ConfigFetchResponse read() throws IOException {
+        return ConfigResponseReader.read(new ByteArrayInputStream(payload), contentType);
+    }
+
+    @Benchmark
+    public Map<String, String> readAndDecrypt() throws IOException {
+        return CipherUtils.decryptAll(read().getConfigEntries(), privateKey);
+    }
+
+}
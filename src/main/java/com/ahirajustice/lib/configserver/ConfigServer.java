@@ -1,41 +1,95 @@
 package com.ahirajustice.lib.configserver;
 
-import com.ahirajustice.lib.configserver.constants.SecurityConstants;
+import com.ahirajustice.lib.configserver.client.ConfigClient;
+import com.ahirajustice.lib.configserver.enums.ConfigBackend;
+import com.ahirajustice.lib.configserver.enums.DecryptMode;
+import com.ahirajustice.lib.configserver.enums.LifecycleStage;
+import com.ahirajustice.lib.configserver.enums.RefreshMode;
+import com.ahirajustice.lib.configserver.enums.RefreshPhase;
+import com.ahirajustice.lib.configserver.enums.RestartStrategy;
+import com.ahirajustice.lib.configserver.enums.RolloutMode;
+import com.ahirajustice.lib.configserver.enums.TopicMode;
+import com.ahirajustice.lib.configserver.enums.WireFormat;
 import com.ahirajustice.lib.configserver.exceptions.ConfigFetchException;
 import com.ahirajustice.lib.configserver.exceptions.ConfigInitializationException;
 import com.ahirajustice.lib.configserver.exceptions.ConfigServerConfigurationException;
+import com.ahirajustice.lib.configserver.listeners.ConfigChangeListener;
+import com.ahirajustice.lib.configserver.filters.InFlightRequestFilter;
+import com.ahirajustice.lib.configserver.http.ConfigServerHttpClient;
+import com.ahirajustice.lib.configserver.metrics.ConfigServerMetrics;
+import com.ahirajustice.lib.configserver.models.ConfigDelta;
+import com.ahirajustice.lib.configserver.models.ConfigDiff;
 import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResult;
+import com.ahirajustice.lib.configserver.models.HttpClientSettings;
+import com.ahirajustice.lib.configserver.models.RefreshMessage;
 import com.ahirajustice.lib.configserver.models.SimpleMessageResponse;
+import com.ahirajustice.lib.configserver.refresh.AntiEntropyPoller;
+import com.ahirajustice.lib.configserver.refresh.ConfigChangeNotifier;
+import com.ahirajustice.lib.configserver.refresh.HotRefresher;
+import com.ahirajustice.lib.configserver.refresh.RefreshIdempotencyLog;
+import com.ahirajustice.lib.configserver.refresh.RefreshScheduler;
+import com.ahirajustice.lib.configserver.refresh.RefreshTracker;
+import com.ahirajustice.lib.configserver.refresh.RolloutCoordinator;
+import com.ahirajustice.lib.configserver.secrets.DecryptingPropertySource;
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import com.ahirajustice.lib.configserver.snapshot.ConfigSnapshotStore;
 import com.ahirajustice.lib.configserver.utils.CipherUtils;
+import com.ahirajustice.lib.configserver.utils.FileUtils;
+import com.ahirajustice.lib.configserver.utils.KeyPatternUtils;
+import com.ahirajustice.lib.configserver.utils.PropertySourceUtils;
+import com.ahirajustice.lib.configserver.values.ConfigValue;
+import com.ahirajustice.lib.configserver.values.ConfigValueRegistry;
+import com.ahirajustice.lib.configserver.values.ConfigValues;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.Getter;
-import lombok.Setter;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.kafka.common.utils.Utils;
 import org.springframework.boot.ApplicationArguments;
 import org.springframework.boot.SpringApplication;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
 import org.springframework.context.ConfigurableApplicationContext;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.HttpMethod;
-import org.springframework.web.client.RestTemplate;
-
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.ResolvableType;
+import org.springframework.kafka.core.KafkaTemplate;
+
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 public class ConfigServer {
 
-    @Getter
-    @Setter
-    private static boolean broadcaster;
     @Getter
     private static boolean enabled;
+    private static Map<String, String> environmentVariables = System.getenv();
     private static Class<?>[] sources;
     private static ConfigurableApplicationContext context;
     private static ApplicationArguments args;
@@ -55,10 +109,84 @@ public class ConfigServer {
     private static String kafkaSessionTimeoutMs;
     @Getter
     private static String kafkaClientDnsLookup;
+    @Getter
+    private static String kafkaCompressionType;
+    @Getter
+    private static TopicMode topicMode = TopicMode.PER_SERVICE;
+    private static String sharedTopic;
+    @Getter
+    private static int sharedTopicPartitionCount;
     private static String podName;
+    @Getter
+    private static RefreshMode refreshMode = RefreshMode.RESTART;
+    private static List<String> restartRequiredKeys = Collections.emptyList();
+    @Getter
+    private static ConfigBackend configBackend = ConfigBackend.DOTENV;
+    private static boolean persistDotenv;
+    @Getter
+    private static DecryptMode decryptMode = DecryptMode.EAGER;
+    private static boolean zeroSecrets;
+    private static ConfigServerHttpClient httpClient;
+    private static List<ConfigClient> clients;
+    private static ConfigClient primaryClient;
+    private static boolean snapshotsEnabled;
+    private static CompletableFuture<Boolean> reconciliation;
+    @Getter
+    private static RefreshScheduler refreshScheduler;
+    @Getter
+    private static AntiEntropyPoller antiEntropyPoller;
+    @Getter
+    private static RolloutCoordinator rolloutCoordinator;
+    @Getter
+    private static RefreshTracker refreshTracker;
+    @Getter
+    private static long refreshBroadcastTimeoutMs;
+    private static volatile boolean restarting;
+    private static CompletableFuture<Void> pendingRestart;
+    @Getter
+    private static RestartStrategy restartStrategy = RestartStrategy.IMMEDIATE;
+    private static long drainDelayMs;
+    private static long drainTimeoutMs;
+    private static final ExecutorService restartExecutor = new ThreadPoolExecutor(0, 1, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+        Thread thread = new Thread(runnable, "config-server-restart");
+        thread.setDaemon(false);
+        return thread;
+    });
+    private static boolean broadcastPayload;
+    private static long broadcastMaxBytes;
+    private static final List<RefreshMessage> pendingMessages = new ArrayList<>();
+    private static final Set<ConfigClient> pendingScopes = new LinkedHashSet<>();
+    private static final Set<ConfigClient> digestUnsupported = ConcurrentHashMap.newKeySet();
+    @Getter
+    private static final String instanceId = UUID.randomUUID().toString();
+    private static final RefreshIdempotencyLog idempotencyLog = new RefreshIdempotencyLog(256);
+    private static final ConfigChangeNotifier changeNotifier = new ConfigChangeNotifier();
+    private static final ConfigValueRegistry configValues = new ConfigValueRegistry();
+    private static Map<String, String> appliedConfig = Collections.emptyMap();
+    private static Map<String, String> dotenvOverflow = Collections.emptyMap();
+    private static List<ConfigEntry> appliedEntries;
+    private static List<ConfigEntry> lastStartedEntries;
+    private static volatile List<ConfigEntry> pinnedEntries;
+    private static LazySecrets appliedSecrets = LazySecrets.EMPTY;
+    @Getter
+    private static volatile Instant lastRefreshTime;
+
+    public static final String PROPERTY_SOURCE_NAME = "configServer";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    /**
+     * Reads the settings of the lib from the given variables instead of the process environment, for
+     * simulations running several pods in one JVM, each with its own copy of this class. Must be called
+     * before the application starts. Not part of the API, the simulation calls it reflectively.
+     */
+    static void useEnvironment(Map<String, String> envVars) {
+        environmentVariables = envVars;
+    }
 
     public static void getConfig() {
-        Map<String, String> envVars = System.getenv();
+        Map<String, String> envVars = environmentVariables;
 
         secretKey = envVars.get("CONFIG_SERVER_SECRET_KEY");
         baseUrl = envVars.get("CONFIG_SERVER_BASE_URL");
@@ -106,73 +234,429 @@ public class ConfigServer {
 
         enabled = true;
         serviceId = envVars.get("SERVICE_NAME");
+        refreshMode = parseEnum(RefreshMode.class, "CONFIG_SERVER_REFRESH_MODE", envVars.get("CONFIG_SERVER_REFRESH_MODE"), RefreshMode.RESTART);
+        // Parsed with the refresh mode, before any early return, so a warm start still knows which keys need a restart
+        restartRequiredKeys = KeyPatternUtils.parse(envVars.get("CONFIG_SERVER_RESTART_REQUIRED_KEYS"));
+        configBackend = parseEnum(ConfigBackend.class, "CONFIG_SERVER_BACKEND", envVars.get("CONFIG_SERVER_BACKEND"), ConfigBackend.DOTENV);
+        persistDotenv = Boolean.parseBoolean(envVars.get("CONFIG_SERVER_PERSIST_DOTENV"));
+        decryptMode = parseEnum(DecryptMode.class, "CONFIG_SERVER_DECRYPT_MODE", envVars.get("CONFIG_SERVER_DECRYPT_MODE"), DecryptMode.EAGER);
+        zeroSecrets = Boolean.parseBoolean(envVars.get("CONFIG_SERVER_ZERO_SECRETS"));
+
+        if (decryptMode == DecryptMode.LAZY && (configBackend != ConfigBackend.MEMORY || persistDotenv)) {
+            throw new ConfigServerConfigurationException("CONFIG_SERVER_DECRYPT_MODE=LAZY requires CONFIG_SERVER_BACKEND=MEMORY without CONFIG_SERVER_PERSIST_DOTENV");
+        }
+        broadcastPayload = Boolean.parseBoolean(envVars.get("CONFIG_SERVER_BROADCAST_PAYLOAD"));
+        broadcastMaxBytes = parseLong("CONFIG_SERVER_BROADCAST_MAX_BYTES", envVars.get("CONFIG_SERVER_BROADCAST_MAX_BYTES"), 900000);
+        kafkaCompressionType = StringUtils.defaultIfBlank(envVars.get("CONFIG_SERVER_KAFKA_COMPRESSION_TYPE"), broadcastPayload ? "gzip" : "none");
+        topicMode = parseEnum(TopicMode.class, "CONFIG_SERVER_TOPIC_MODE", envVars.get("CONFIG_SERVER_TOPIC_MODE"), TopicMode.PER_SERVICE);
+        sharedTopic = StringUtils.defaultIfBlank(envVars.get("CONFIG_SERVER_SHARED_TOPIC"), "config-server-refresh");
+        sharedTopicPartitionCount = (int) parseLong("CONFIG_SERVER_SHARED_TOPIC_PARTITIONS", envVars.get("CONFIG_SERVER_SHARED_TOPIC_PARTITIONS"), 12);
+
+        if (sharedTopicPartitionCount < 1) {
+            throw new ConfigServerConfigurationException(String.format("Invalid configuration for CONFIG_SERVER_SHARED_TOPIC_PARTITIONS: %d", sharedTopicPartitionCount));
+        }
+
+        if (httpClient == null) {
+            httpClient = new ConfigServerHttpClient(HttpClientSettings.builder()
+                    .connectTimeoutMs((int) parseLong("CONFIG_SERVER_HTTP_CONNECT_TIMEOUT_MS", envVars.get("CONFIG_SERVER_HTTP_CONNECT_TIMEOUT_MS"), 5000))
+                    .readTimeoutMs((int) parseLong("CONFIG_SERVER_HTTP_READ_TIMEOUT_MS", envVars.get("CONFIG_SERVER_HTTP_READ_TIMEOUT_MS"), 30000))
+                    .maxConnections((int) parseLong("CONFIG_SERVER_HTTP_MAX_CONNECTIONS", envVars.get("CONFIG_SERVER_HTTP_MAX_CONNECTIONS"), 4))
+                    .maxRetries((int) parseLong("CONFIG_SERVER_HTTP_MAX_RETRIES", envVars.get("CONFIG_SERVER_HTTP_MAX_RETRIES"), 3))
+                    .retryBackoffMs(parseLong("CONFIG_SERVER_HTTP_RETRY_BACKOFF_MS", envVars.get("CONFIG_SERVER_HTTP_RETRY_BACKOFF_MS"), 500))
+                    .retryMaxBackoffMs(parseLong("CONFIG_SERVER_HTTP_RETRY_MAX_BACKOFF_MS", envVars.get("CONFIG_SERVER_HTTP_RETRY_MAX_BACKOFF_MS"), 10000))
+                    .circuitBreakerThreshold((int) parseLong("CONFIG_SERVER_HTTP_CIRCUIT_BREAKER_THRESHOLD", envVars.get("CONFIG_SERVER_HTTP_CIRCUIT_BREAKER_THRESHOLD"), 5))
+                    .circuitBreakerCooldownMs(parseLong("CONFIG_SERVER_HTTP_CIRCUIT_BREAKER_COOLDOWN_MS", envVars.get("CONFIG_SERVER_HTTP_CIRCUIT_BREAKER_COOLDOWN_MS"), 30000))
+                    .wireFormat(parseEnum(WireFormat.class, "CONFIG_SERVER_WIRE_FORMAT", envVars.get("CONFIG_SERVER_WIRE_FORMAT"), WireFormat.BINARY))
+                    .build());
+        }
+
+        if (rolloutCoordinator == null) {
+            rolloutCoordinator = new RolloutCoordinator(
+                    parseEnum(RolloutMode.class, "CONFIG_SERVER_ROLLOUT_MODE", envVars.get("CONFIG_SERVER_ROLLOUT_MODE"), RolloutMode.NONE),
+                    parseLong("CONFIG_SERVER_ROLLOUT_WINDOW_MS", envVars.get("CONFIG_SERVER_ROLLOUT_WINDOW_MS"), 30000),
+                    (int) parseLong("CONFIG_SERVER_ROLLOUT_MAX_CONCURRENT", envVars.get("CONFIG_SERVER_ROLLOUT_MAX_CONCURRENT"), 0),
+                    parseLong("CONFIG_SERVER_ROLLOUT_LEASE_MS", envVars.get("CONFIG_SERVER_ROLLOUT_LEASE_MS"), 120000),
+                    podName,
+                    getRolloutTopic()
+            );
+        }
+
+        if (refreshTracker == null) {
+            refreshTracker = new RefreshTracker(
+                    (int) parseLong("CONFIG_SERVER_REFRESH_QUEUE_CAPACITY", envVars.get("CONFIG_SERVER_REFRESH_QUEUE_CAPACITY"), 16),
+                    parseLong("CONFIG_SERVER_REFRESH_TIMEOUT_MS", envVars.get("CONFIG_SERVER_REFRESH_TIMEOUT_MS"), 60000)
+            );
+        }
+
+        refreshBroadcastTimeoutMs = parseLong("CONFIG_SERVER_REFRESH_BROADCAST_TIMEOUT_MS", envVars.get("CONFIG_SERVER_REFRESH_BROADCAST_TIMEOUT_MS"), 10000);
+
+        if (refreshScheduler == null) {
+            refreshScheduler = new RefreshScheduler(parseLong("CONFIG_SERVER_REFRESH_WINDOW_MS", envVars.get("CONFIG_SERVER_REFRESH_WINDOW_MS"), 1000), ConfigServer::rolloutRefresh);
+        }
+
+        if (clients == null) {
+            clients = createClients(envVars);
+            primaryClient = clients.get(0);
+        }
+
+        long antiEntropyIntervalMs = parseLong("CONFIG_SERVER_ANTI_ENTROPY_INTERVAL_MS", envVars.get("CONFIG_SERVER_ANTI_ENTROPY_INTERVAL_MS"), 0);
+
+        if (antiEntropyPoller == null && antiEntropyIntervalMs > 0) {
+            antiEntropyPoller = new AntiEntropyPoller(
+                    antiEntropyIntervalMs,
+                    parseLong("CONFIG_SERVER_ANTI_ENTROPY_MAX_INTERVAL_MS", envVars.get("CONFIG_SERVER_ANTI_ENTROPY_MAX_INTERVAL_MS"), antiEntropyIntervalMs * 10),
+                    ConfigServer::checkDrift
+            );
+        }
+
+        restartStrategy = parseEnum(RestartStrategy.class, "CONFIG_SERVER_RESTART_STRATEGY", envVars.get("CONFIG_SERVER_RESTART_STRATEGY"), RestartStrategy.IMMEDIATE);
+        drainDelayMs = parseLong("CONFIG_SERVER_DRAIN_DELAY_MS", envVars.get("CONFIG_SERVER_DRAIN_DELAY_MS"), 0);
+        drainTimeoutMs = parseLong("CONFIG_SERVER_DRAIN_TIMEOUT_MS", envVars.get("CONFIG_SERVER_DRAIN_TIMEOUT_MS"), 30000);
+
+        if (pinnedEntries != null) {
+            log.info("Starting with the last working config instead of config version {}", getConfigVersion());
+            loadConfig(pinnedEntries);
+            return;
+        }
 
-        List<ConfigEntry> configEntries = fetchConfig(baseUrl);
-        persistConfig(configEntries);
+        if (restarting) {
+            // The lib restarts the application only to apply config it already holds
+            loadConfig(composeEntries());
+            return;
+        }
+
+        if (warmStart()) {
+            return;
+        }
+
+        fetchAndLoadConfig();
+        idempotencyLog.markApplied(getConfigVersion());
     }
 
-    private static List<ConfigEntry> fetchConfig(String baseUrl) {
-        RestTemplate restTemplate = new RestTemplate();
+    /**
+     * Without scopes and with EAGER decryption, each entry of the fetched config set is decrypted as soon as
+     * it is read from the response, so boot never holds the parsed entries and their decrypted values as two
+     * separate batches. Anything other than a full config set is loaded the usual way.
+     */
+    private static void fetchAndLoadConfig() {
+        if (clients.size() > 1 || decryptMode == DecryptMode.LAZY) {
+            fetchAll(clients);
+            loadConfig(composeEntries());
+            return;
+        }
+
+        Map<String, String> decryptedValues = new LinkedHashMap<>();
+        long[] decryptNanos = new long[1];
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.set(HttpHeaders.AUTHORIZATION, SecurityConstants.TOKEN_PREFIX + " " + secretKey);
+        primaryClient.fetch(entry -> {
+            long start = System.nanoTime();
+            decryptedValues.put(entry.getConfigKey(), CipherUtils.decrypt(entry, privateKey));
+            decryptNanos[0] += System.nanoTime() - start;
+        });
 
-        HttpEntity<?> requestEntity = new HttpEntity<>(headers);
+        List<ConfigEntry> configEntries = composeEntries();
+        // A retried request streams the config set again, which may no longer contain every key of the first attempt
+        decryptedValues.keySet().retainAll(primaryClient.getEntries().keySet());
+
+        if (decryptedValues.size() != configEntries.size()) {
+            loadConfig(configEntries);
+            return;
+        }
+
+        long encryptedCount = configEntries.stream().filter(entry -> Boolean.TRUE.equals(entry.getEncrypted())).count();
+        ConfigServerMetrics.record(LifecycleStage.DECRYPT, decryptNanos[0], encryptedCount);
+
+        loadConfig(configEntries, writeConfig(decryptedValues));
+    }
+
+    private static void loadConfig(List<ConfigEntry> configEntries) {
+        loadConfig(configEntries, persistConfig(configEntries));
+    }
+
+    private static void loadConfig(List<ConfigEntry> configEntries, Map<String, String> config) {
+        appliedConfig = config;
+        appliedEntries = configEntries;
+        replaceSecrets(prepareSecrets(configEntries));
+        configValues.publish(getConfigVersion(), appliedConfig, appliedSecrets);
+    }
+
+    /**
+     * Creates the client of the service itself followed by a client per scope listed in
+     * CONFIG_SERVER_SCOPES, in descending order of precedence. Each scope is configured with
+     * CONFIG_SERVER_SCOPE_&lt;NAME&gt;_SECRET_KEY, and optionally _SERVICE_NAME and _BASE_URL.
+     */
+    private static List<ConfigClient> createClients(Map<String, String> envVars) {
+        String snapshotPath = envVars.get("CONFIG_SERVER_SNAPSHOT_PATH");
+        snapshotsEnabled = StringUtils.isNotBlank(snapshotPath);
+
+        List<ConfigClient> configClients = new ArrayList<>();
+        configClients.add(new ConfigClient(
+                "service", baseUrl, secretKey, serviceId, httpClient,
+                snapshotsEnabled ? new ConfigSnapshotStore(Paths.get(snapshotPath)) : null
+        ));
+
+        for (String scope : StringUtils.split(StringUtils.defaultString(envVars.get("CONFIG_SERVER_SCOPES")), ',')) {
+            String name = scope.trim();
+            if (name.isEmpty()) {
+                continue;
+            }
+
+            String prefix = String.format("CONFIG_SERVER_SCOPE_%s_", name.toUpperCase().replaceAll("[^A-Z0-9]", "_"));
+            String scopeSecretKey = envVars.get(prefix + "SECRET_KEY");
+
+            if (StringUtils.isBlank(scopeSecretKey)) {
+                throw new ConfigServerConfigurationException(String.format("Invalid configuration for %sSECRET_KEY", prefix));
+            }
+
+            configClients.add(new ConfigClient(
+                    name,
+                    StringUtils.defaultIfBlank(envVars.get(prefix + "BASE_URL"), baseUrl),
+                    scopeSecretKey,
+                    envVars.get(prefix + "SERVICE_NAME"),
+                    httpClient,
+                    snapshotsEnabled ? new ConfigSnapshotStore(Paths.get(String.format("%s.%s", snapshotPath, name))) : null
+            ));
+        }
+
+        return Collections.unmodifiableList(configClients);
+    }
+
+    /**
+     * Fetches the given clients in parallel, so startup waits for the slowest scope rather than the sum of
+     * all of them. Returns whether any of them was modified.
+     */
+    private static boolean fetchAll(Collection<ConfigClient> configClients) {
+        if (configClients.size() == 1) {
+            return configClients.iterator().next().fetch().isModified();
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(configClients.size(), runnable -> {
+            Thread thread = new Thread(runnable, "config-server-fetch");
+            thread.setDaemon(true);
+            return thread;
+        });
 
         try {
-            var responseEntity = restTemplate.exchange(
-                    String.format("%s/api/configs/fetch", baseUrl),
-                    HttpMethod.GET,
-                    requestEntity,
-                    new ParameterizedTypeReference<List<ConfigEntry>>() {}
-            );
+            List<CompletableFuture<ConfigFetchResult>> fetches = new ArrayList<>();
+            for (ConfigClient configClient : configClients) {
+                fetches.add(CompletableFuture.supplyAsync(configClient::fetch, executor));
+            }
 
-            return responseEntity.getBody();
+            boolean modified = false;
+            for (CompletableFuture<ConfigFetchResult> fetch : fetches) {
+                modified |= fetch.join().isModified();
+            }
+
+            return modified;
         }
-        catch (Exception ex) {
+        catch (CompletionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+
             throw new ConfigFetchException(ex.getMessage());
         }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Merges the entries of all scopes, a key of a higher precedence scope overriding the same key of
+     * lower precedence scopes.
+     */
+    private static List<ConfigEntry> composeEntries() {
+        Map<String, ConfigEntry> entries = new LinkedHashMap<>();
+
+        for (int i = clients.size() - 1; i >= 0; i--) {
+            entries.putAll(clients.get(i).getEntries());
+        }
 
+        return new ArrayList<>(entries.values());
     }
 
-    private static void persistConfig(List<ConfigEntry> configEntries) {
-        StringBuilder config = new StringBuilder();
+    /**
+     * Applies the local snapshot, if one is configured and valid, and reconciles it with config-server in
+     * the background, so startup does not wait on config-server and survives it being unreachable.
+     */
+    private static boolean warmStart() {
+        if (!snapshotsEnabled) {
+            return false;
+        }
 
-        for (ConfigEntry configEntry : configEntries) {
-            String configValue = configEntry.getConfigValue();
+        for (ConfigClient configClient : clients) {
+            if (!configClient.loadSnapshot()) {
+                return false;
+            }
+        }
+
+        loadConfig(composeEntries());
+        idempotencyLog.markApplied(getConfigVersion());
+        log.info("Loaded config version {} from local snapshot, reconciling with config server in the background", getConfigVersion());
+
+        reconciliation = CompletableFuture.supplyAsync(() -> fetchAll(clients), runnable -> {
+            Thread thread = new Thread(runnable, "config-server-reconcile");
+            thread.setDaemon(true);
+            thread.start();
+        });
+
+        return true;
+    }
+
+    private static long parseLong(String name, String value, long defaultValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+
+        try {
+            return Long.parseLong(value.trim());
+        }
+        catch (NumberFormatException ex) {
+            throw new ConfigServerConfigurationException(String.format("Invalid configuration for %s: %s", name, value));
+        }
+    }
+
+    private static <T extends Enum<T>> T parseEnum(Class<T> type, String name, String value, T defaultValue) {
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+
+        try {
+            return Enum.valueOf(type, value.trim().toUpperCase());
+        }
+        catch (IllegalArgumentException ex) {
+            throw new ConfigServerConfigurationException(String.format("Invalid configuration for %s: %s", name, value));
+        }
+    }
+
+    private static Map<String, String> persistConfig(List<ConfigEntry> configEntries) {
+        if (decryptMode == DecryptMode.LAZY) {
+            Map<String, String> rawValues = new LinkedHashMap<>();
+            configEntries.forEach(entry -> rawValues.put(entry.getConfigKey(), entry.getConfigValue()));
+            lastRefreshTime = Instant.now();
+
+            return rawValues;
+        }
+
+        long start = System.nanoTime();
+        Map<String, String> configValues = CipherUtils.decryptAll(configEntries, privateKey);
+        long encryptedCount = configEntries.stream().filter(entry -> Boolean.TRUE.equals(entry.getEncrypted())).count();
+        ConfigServerMetrics.record(LifecycleStage.DECRYPT, System.nanoTime() - start, encryptedCount);
 
-            if (configEntry.getEncrypted()) {
-                configValue = decrypt(configValue);
+        return writeConfig(configValues);
+    }
+
+    private static Map<String, String> writeConfig(Map<String, String> configValues) {
+        lastRefreshTime = Instant.now();
+
+        if (configBackend == ConfigBackend.MEMORY && !persistDotenv) {
+            return configValues;
+        }
+
+        Map<String, String> dotenvValues = configValues;
+        Map<String, String> unwritable = new LinkedHashMap<>();
+        configValues.forEach((key, value) -> {
+            if (!FileUtils.isDotenvWritable(key, value)) {
+                unwritable.put(key, value);
             }
-            
-            config.append(String.format("%s=%s", configEntry.getConfigKey(), configValue));
-            config.append("\n");
+        });
+
+        if (!unwritable.isEmpty()) {
+            log.warn("Config keys {} cannot be written to .env, adding them to the environment in memory instead", unwritable.keySet());
+            dotenvValues = new LinkedHashMap<>(configValues);
+            dotenvValues.keySet().removeAll(unwritable.keySet());
         }
 
+        dotenvOverflow = unwritable;
+        long start = System.nanoTime();
+
         try {
-            BufferedWriter writer = new BufferedWriter(new FileWriter(".env"));
-            writer.write(config.toString());
-            writer.close();
+            FileUtils.writeDotenv(Paths.get(".env"), dotenvValues);
         }
         catch (IOException ex) {
             throw new ConfigInitializationException(ex.getMessage());
         }
+        finally {
+            ConfigServerMetrics.record(LifecycleStage.PERSIST, System.nanoTime() - start);
+        }
+
+        return configValues;
     }
 
-    private static String decrypt(String configValue) {
-        return CipherUtils.decryptString(configValue, privateKey);
+    /**
+     * With the MEMORY backend, the fetched config is added to the environment as a highest precedence
+     * property source instead of being read back from the .env file. With the DOTENV backend, only the
+     * values the .env file cannot hold are added this way.
+     */
+    public static void configureEnvironment(ConfigurableEnvironment environment) {
+        if (!enabled) {
+            return;
+        }
+
+        Map<String, String> config = configBackend == ConfigBackend.MEMORY ? appliedConfig : dotenvOverflow;
+
+        if (config.isEmpty() && configBackend != ConfigBackend.MEMORY) {
+            return;
+        }
+
+        DecryptingPropertySource propertySource = new DecryptingPropertySource(PROPERTY_SOURCE_NAME, PropertySourceUtils.toProperties(config, appliedSecrets));
+        PropertySourceUtils.addOrReplaceFirst(environment.getPropertySources(), propertySource);
+    }
+
+    /**
+     * With LAZY decryption, encrypted values are kept as ciphertext in the applied config and wrapped in
+     * secrets that decrypt on first read. Unchanged secrets are carried over with their cached value.
+     */
+    private static LazySecrets prepareSecrets(List<ConfigEntry> configEntries) {
+        if (decryptMode != DecryptMode.LAZY) {
+            return LazySecrets.EMPTY;
+        }
+
+        return appliedSecrets.update(configEntries, privateKey);
+    }
+
+    private static void replaceSecrets(LazySecrets secrets) {
+        LazySecrets previousSecrets = appliedSecrets;
+        appliedSecrets = secrets;
+        previousSecrets.destroyReplaced(secrets, zeroSecrets);
     }
 
     public static SimpleMessageResponse refreshConfig(List<ConfigEntry> configEntries) {
+        return refreshConfig(configEntries, null);
+    }
+
+    public static SimpleMessageResponse refreshConfig(List<ConfigEntry> configEntries, String version) {
+        return refreshConfig(configEntries, version, phase -> {}, false);
+    }
+
+    /**
+     * Applies the config and waits until it is active, including the restart of the application when one
+     * is needed, before reporting the APPLIED phase. Must therefore not be called from a thread of the
+     * application context.
+     */
+    public static SimpleMessageResponse refreshConfig(List<ConfigEntry> configEntries, String version, Consumer<RefreshPhase> onPhase) {
+        return refreshConfig(configEntries, version, onPhase, true);
+    }
+
+    private static SimpleMessageResponse refreshConfig(List<ConfigEntry> configEntries, String version, Consumer<RefreshPhase> onPhase, boolean awaitApplied) {
         try {
-            persistConfig(configEntries);
-            restart();
+            primaryClient.replace(configEntries, version);
+            CompletableFuture<Void> applied = applyConfig(composeEntries(), onPhase);
+
+            if (awaitApplied) {
+                applied.get();
+                onPhase.accept(RefreshPhase.APPLIED);
+            }
 
             return SimpleMessageResponse.success("Successfully refreshed application config");
         }
         catch (ConfigInitializationException ex) {
             return SimpleMessageResponse.fail("Error occurred while persisting application config");
         }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return SimpleMessageResponse.fail("Interrupted while waiting for the refreshed config to be applied");
+        }
         catch (Exception ex) {
             log.error(ex.getMessage(), ex);
             return SimpleMessageResponse.fail("An error occurred while refreshing application config. Check application logs.");
@@ -183,28 +667,608 @@ public class ConfigServer {
         sources = primarySources.toArray(Class[]::new);
         context = applicationContext;
         args = context.getBean(ApplicationArguments.class);
+        lastStartedEntries = appliedEntries;
+
+        if (rolloutCoordinator != null && rolloutCoordinator.isCoordinated()) {
+            rolloutCoordinator.setKafkaTemplate(getKafkaTemplate(context));
+        }
+
+        // Polling starts once there is an application to restart, drift found earlier could not be applied
+        if (antiEntropyPoller != null) {
+            antiEntropyPoller.start();
+        }
+
+        if (reconciliation != null) {
+            reconciliation.thenAccept(modified -> {
+                if (modified) {
+                    log.info("Local config snapshot is stale, applying config version {}", getConfigVersion());
+                    applyConfig(composeEntries());
+                }
+            }).exceptionally(ex -> {
+                log.warn("Unable to reconcile local config snapshot with config server: {}", ex.getMessage());
+                return null;
+            });
+            reconciliation = null;
+        }
     }
 
-    private static void restart() {
-        Thread thread = new Thread(() -> {
-            context.close();
-            context = SpringApplication.run(sources, args.getSourceArgs());
+    /**
+     * Restarts the application on the restart thread. Returns a future that completes when the new
+     * application context has started. Restarts are never run concurrently: a restart requested while one
+     * is in progress is queued as a single follow-up restart, shared by all requests made in the meantime.
+     */
+    private static synchronized CompletableFuture<Void> restart() {
+        if (restarting) {
+            if (pendingRestart == null) {
+                pendingRestart = new CompletableFuture<>();
+                log.info("Restart already in progress, queueing follow-up restart");
+            }
+
+            return pendingRestart;
+        }
+
+        restarting = true;
+        CompletableFuture<Void> restarted = new CompletableFuture<>();
+
+        restartExecutor.execute(() -> {
+            long start = System.nanoTime();
+
+            try {
+                if (restartStrategy == RestartStrategy.DRAIN) {
+                    drain(context);
+                }
+
+                context.close();
+                context = runApplication();
+                restarted.complete(null);
+            }
+            catch (RuntimeException ex) {
+                restarted.completeExceptionally(ex);
+                throw ex;
+            }
+            finally {
+                ConfigServerMetrics.record(LifecycleStage.RESTART, System.nanoTime() - start);
+                onRestartComplete();
+            }
         });
 
-        thread.setDaemon(false);
-        thread.start();
+        return restarted;
+    }
+
+    /**
+     * Marks the application as refusing traffic, gives the platform the drain delay to stop routing to
+     * this pod, then waits, up to the drain timeout, for in-flight requests to complete.
+     */
+    private static void drain(ConfigurableApplicationContext applicationContext) {
+        AvailabilityChangeEvent.publish(applicationContext, ReadinessState.REFUSING_TRAFFIC);
+        InFlightRequestFilter inFlightRequests = applicationContext.getBeanProvider(InFlightRequestFilter.class).getIfAvailable();
+
+        try {
+            Thread.sleep(drainDelayMs);
+
+            if (inFlightRequests != null && !inFlightRequests.awaitIdle(drainTimeoutMs)) {
+                log.warn("{} requests still in flight after {} ms, restarting anyway", inFlightRequests.getInFlight(), drainTimeoutMs);
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * With the DRAIN strategy, an application failing to start with the new config is started again with
+     * the config it last started with. That config stays pinned until a new config is applied.
+     */
+    private static ConfigurableApplicationContext runApplication() {
+        try {
+            return SpringApplication.run(sources, args.getSourceArgs());
+        }
+        catch (RuntimeException ex) {
+            if (restartStrategy != RestartStrategy.DRAIN || lastStartedEntries == null || lastStartedEntries == appliedEntries) {
+                throw ex;
+            }
+
+            log.error("Application failed to start with config version {}, rolling back to the last working config: {}", getConfigVersion(), ex.getMessage(), ex);
+            pinnedEntries = lastStartedEntries;
+
+            return SpringApplication.run(sources, args.getSourceArgs());
+        }
+    }
+
+    private static synchronized void onRestartComplete() {
+        restarting = false;
+        rolloutCoordinator.complete();
+
+        if (pendingRestart != null) {
+            CompletableFuture<Void> pending = pendingRestart;
+            pendingRestart = null;
+
+            restart().whenComplete((result, ex) -> {
+                if (ex != null) {
+                    pending.completeExceptionally(ex);
+                }
+                else {
+                    pending.complete(null);
+                }
+            });
+        }
+    }
+
+    /**
+     * Builds the broadcast for a refresh pushed to this pod. Unless payload broadcasts are enabled this is
+     * the pod name, which makes receivers fetch config. Otherwise it is a {@link RefreshMessage} carrying
+     * a delta against the current version when both versions are known, or else the full entry list. A
+     * message larger than the configured maximum falls back to the pod name.
+     */
+    public static synchronized String buildRefreshMessage(List<ConfigEntry> configEntries, String version) {
+        if (!broadcastPayload) {
+            return getGroupId();
+        }
+
+        RefreshMessage message = new RefreshMessage();
+        message.setVersion(version);
+
+        String currentVersion = primaryClient.getVersion();
+
+        if (currentVersion != null && version != null) {
+            message.setBaseVersion(currentVersion);
+            message.setDelta(buildDelta(configEntries, version));
+        }
+        else {
+            message.setConfigEntries(configEntries);
+        }
+
+        try {
+            String payload = objectMapper.writeValueAsString(message);
+            int payloadBytes = payload.getBytes(StandardCharsets.UTF_8).length;
+
+            if (payloadBytes > broadcastMaxBytes) {
+                log.info("Refresh payload of {} bytes exceeds broadcast limit, receivers will fetch config", payloadBytes);
+                return getGroupId();
+            }
+
+            return payload;
+        }
+        catch (JsonProcessingException ex) {
+            log.warn("Unable to serialize refresh payload, receivers will fetch config: {}", ex.getMessage());
+            return getGroupId();
+        }
+    }
+
+    private static ConfigDelta buildDelta(List<ConfigEntry> configEntries, String version) {
+        ConfigDelta delta = new ConfigDelta();
+        delta.setVersion(version);
+
+        Map<String, ConfigEntry> currentEntries = primaryClient.getEntries();
+        Set<String> keys = new HashSet<>();
+
+        for (ConfigEntry entry : configEntries) {
+            keys.add(entry.getConfigKey());
+            ConfigEntry current = currentEntries.get(entry.getConfigKey());
+
+            if (current == null) {
+                delta.getAdded().add(entry);
+            }
+            else if (!current.hasSameContent(entry)) {
+                delta.getChanged().add(entry);
+            }
+        }
+
+        for (String key : currentEntries.keySet()) {
+            if (!keys.contains(key)) {
+                delta.getRemoved().add(key);
+            }
+        }
+
+        return delta;
+    }
+
+    /**
+     * Registers a listener for keys matching the pattern, either an exact key or a prefix ending in '*'.
+     * Listeners are called with the matching changes after each hot refresh, on a dedicated thread. The
+     * returned Runnable removes the listener.
+     */
+    public static Runnable onChange(String keyPattern, ConfigChangeListener listener) {
+        return changeNotifier.subscribe(keyPattern, listener);
+    }
+
+    /**
+     * Returns the applied config as an immutable snapshot, which stays consistent however long it is held.
+     */
+    public static ConfigValues getConfigValues() {
+        return configValues.getCurrent();
+    }
+
+    /**
+     * Typed handles to config keys for hot paths. Create them once, e.g. as static fields, and call
+     * {@link ConfigValue#get()} on every read: values are parsed when config is applied rather than on read.
+     */
+    public static ConfigValue<String> stringValue(String key, String defaultValue) {
+        return configValues.stringValue(key, defaultValue);
+    }
+
+    public static ConfigValue<Integer> intValue(String key, int defaultValue) {
+        return configValues.intValue(key, defaultValue);
+    }
+
+    public static ConfigValue<Long> longValue(String key, long defaultValue) {
+        return configValues.longValue(key, defaultValue);
+    }
+
+    public static ConfigValue<Boolean> booleanValue(String key, boolean defaultValue) {
+        return configValues.booleanValue(key, defaultValue);
+    }
+
+    public static ConfigValue<Duration> durationValue(String key, Duration defaultValue) {
+        return configValues.durationValue(key, defaultValue);
+    }
+
+    public static void requestRefresh() {
+        requestRefresh((RefreshMessage) null);
+    }
+
+    /**
+     * Decides whether a broadcast received from the refresh topic should be applied by this pod. Broadcasts
+     * sent by this instance, redelivered broadcasts and broadcasts for an already applied version are
+     * skipped. Broadcasts without an origin header, sent by older versions of this lib, are matched on the
+     * pod name they carry instead.
+     */
+    public static boolean shouldApplyBroadcast(String origin, String correlationId, String version, String message) {
+        boolean apply = isApplicableBroadcast(origin, correlationId, version, message);
+        ConfigServerMetrics.recordBroadcastReceived(apply);
+
+        return apply;
+    }
+
+    private static boolean isApplicableBroadcast(String origin, String correlationId, String version, String message) {
+        if (origin != null ? instanceId.equals(origin) : StringUtils.equals(message, getGroupId())) {
+            return false;
+        }
+
+        if (!idempotencyLog.markReceived(correlationId)) {
+            log.info("Skipping redelivered refresh broadcast {}", correlationId);
+            return false;
+        }
+
+        if (idempotencyLog.isApplied(version)) {
+            log.info("Skipping refresh broadcast {} for already applied config version {}", correlationId, version);
+            return false;
+        }
+
+        return true;
+    }
+
+    public static void markBroadcastSent(String correlationId) {
+        idempotencyLog.markReceived(correlationId);
+    }
+
+    /**
+     * Queues a refresh received from the broadcast topic. A message carrying a {@link RefreshMessage}
+     * payload is applied without a fetch, while a bare notification, such as the pod name, is fetched.
+     */
+    public static void requestRefresh(String message) {
+        RefreshMessage refreshMessage = null;
+
+        if (StringUtils.startsWith(message, "{")) {
+            try {
+                refreshMessage = objectMapper.readValue(message, RefreshMessage.class);
+            }
+            catch (JsonProcessingException ex) {
+                log.warn("Unable to parse refresh payload, fetching config instead: {}", ex.getMessage());
+            }
+        }
+
+        requestRefresh(refreshMessage);
+    }
+
+    private static void requestRefresh(RefreshMessage message) {
+        synchronized (pendingMessages) {
+            pendingMessages.add(message);
+        }
+
+        refreshScheduler.submit();
+    }
+
+    /**
+     * Queues a refetch of the scope subscribed to the given topic. Scope broadcasts are only deduplicated
+     * on their correlation ID, as scope versions are unrelated to the service's own versions.
+     */
+    public static void requestScopeRefresh(String topic, String correlationId) {
+        ConfigClient scope = clients.stream().skip(1).filter(client -> client.getTopic().equals(topic)).findFirst().orElse(null);
+        boolean apply = scope != null && idempotencyLog.markReceived(correlationId);
+        ConfigServerMetrics.recordBroadcastReceived(apply);
+
+        if (!apply) {
+            return;
+        }
+
+        synchronized (pendingMessages) {
+            pendingScopes.add(scope);
+        }
+
+        refreshScheduler.submit();
+    }
+
+    /**
+     * Compares the digest of every scope with config-server and queues a refresh of the scopes that drifted,
+     * e.g. because a broadcast was missed while the pod restarted. Returns whether any scope drifted.
+     */
+    private static boolean checkDrift() {
+        if (restarting || context == null) {
+            return false;
+        }
+
+        List<ConfigClient> drifted = new ArrayList<>();
+
+        for (ConfigClient client : clients) {
+            if (digestUnsupported.contains(client)) {
+                continue;
+            }
+
+            String digest = client.fetchDigest();
+
+            if (digest == null) {
+                log.warn("Config server does not serve digests for {}, skipping its anti-entropy checks", client.getName());
+                digestUnsupported.add(client);
+            }
+            else if (!client.isInSync(digest)) {
+                drifted.add(client);
+            }
+        }
+
+        if (drifted.isEmpty()) {
+            return false;
+        }
+
+        log.warn("Applied config of {} does not match config server, refreshing", drifted.stream().map(ConfigClient::getName).collect(Collectors.toList()));
+
+        synchronized (pendingMessages) {
+            for (ConfigClient client : drifted) {
+                if (client == primaryClient) {
+                    pendingMessages.add(null);
+                }
+                else {
+                    pendingScopes.add(client);
+                }
+            }
+        }
+
+        refreshScheduler.submit();
+
+        return true;
+    }
+
+    private static void rolloutRefresh() {
+        List<RefreshMessage> messages;
+        List<ConfigClient> scopes;
+
+        synchronized (pendingMessages) {
+            messages = new ArrayList<>(pendingMessages);
+            pendingMessages.clear();
+            scopes = new ArrayList<>(pendingScopes);
+            pendingScopes.clear();
+        }
+
+        rolloutCoordinator.awaitTurn();
+
+        boolean modified = false;
+
+        if (!messages.isEmpty()) {
+            ConfigFetchResult result = applyRefreshMessages(messages);
+            modified = result != null ? result.isModified() : primaryClient.fetch().isModified();
+        }
+
+        if (!scopes.isEmpty()) {
+            modified |= fetchAll(scopes);
+        }
+
+        if (modified) {
+            applyConfig(composeEntries());
+        }
+        else {
+            log.info("Config version {} is up to date", getConfigVersion());
+        }
+
+        synchronized (ConfigServer.class) {
+            if (!restarting) {
+                rolloutCoordinator.complete();
+            }
+        }
+    }
+
+    /**
+     * Applies the payloads of the coalesced refresh messages, in order, on top of the current entries.
+     * Returns null when config has to be fetched instead: when a message carries no payload, or a delta
+     * does not start from the version reached so far.
+     */
+    private static ConfigFetchResult applyRefreshMessages(List<RefreshMessage> messages) {
+        synchronized (primaryClient) {
+            return applyRefreshMessages(messages, primaryClient.getEntries(), primaryClient.getVersion());
+        }
+    }
+
+    private static ConfigFetchResult applyRefreshMessages(List<RefreshMessage> messages, Map<String, ConfigEntry> currentEntries, String currentVersion) {
+        Map<String, ConfigEntry> entries = new LinkedHashMap<>(currentEntries);
+        String version = currentVersion;
+        boolean modified = false;
+
+        for (RefreshMessage message : messages) {
+            if (message == null || (message.getConfigEntries() == null && message.getDelta() == null)) {
+                return null;
+            }
+
+            if (message.getConfigEntries() != null) {
+                entries.clear();
+                message.getConfigEntries().forEach(entry -> entries.put(entry.getConfigKey(), entry));
+            }
+            else {
+                if (version == null || !version.equals(message.getBaseVersion())) {
+                    log.info("Refresh delta from version {} does not match local version {}, fetching config", message.getBaseVersion(), version);
+                    return null;
+                }
+
+                ConfigDelta delta = message.getDelta();
+                delta.getRemoved().forEach(entries::remove);
+                delta.getAdded().forEach(entry -> entries.put(entry.getConfigKey(), entry));
+                delta.getChanged().forEach(entry -> entries.put(entry.getConfigKey(), entry));
+            }
+
+            version = message.getVersion();
+            modified = true;
+        }
+
+        if (modified) {
+            primaryClient.replace(entries, version);
+        }
+
+        return new ConfigFetchResult(modified, version, new ArrayList<>(entries.values()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static KafkaTemplate<String, String> getKafkaTemplate(ConfigurableApplicationContext applicationContext) {
+        ResolvableType type = ResolvableType.forClassWithGenerics(KafkaTemplate.class, String.class, String.class);
+        return (KafkaTemplate<String, String>) applicationContext.getBeanProvider(type).getIfAvailable();
     }
 
     public static void pullConfig() {
-        List<ConfigEntry> configEntries = fetchConfig(baseUrl);
-        persistConfig(configEntries);
-        restart();
+        ConfigFetchResult result = primaryClient.fetch();
+
+        if (!result.isModified()) {
+            log.info("Config version {} is up to date", result.getVersion());
+            return;
+        }
+
+        applyConfig(composeEntries());
+    }
+
+    private static CompletableFuture<Void> applyConfig(List<ConfigEntry> configEntries) {
+        return applyConfig(configEntries, phase -> {});
     }
 
+    private static synchronized CompletableFuture<Void> applyConfig(List<ConfigEntry> configEntries, Consumer<RefreshPhase> onPhase) {
+        pinnedEntries = null;
+        Map<String, String> config = persistConfig(configEntries);
+        LazySecrets secrets = prepareSecrets(configEntries);
+        idempotencyLog.markApplied(getConfigVersion());
+        onPhase.accept(RefreshPhase.PERSISTED);
+
+        return activateConfig(configEntries, config, secrets);
+    }
+
+    /**
+     * Returns a future that completes once the config is active, which for a restart is when the new
+     * application context has started.
+     */
+    private static CompletableFuture<Void> activateConfig(List<ConfigEntry> configEntries, Map<String, String> config, LazySecrets secrets) {
+        if (refreshMode == RefreshMode.RESTART || context == null) {
+            appliedConfig = config;
+            appliedEntries = configEntries;
+            replaceSecrets(secrets);
+            configValues.publish(getConfigVersion(), appliedConfig, appliedSecrets);
+            return restart();
+        }
+
+        Set<String> flaggedKeys = new HashSet<>();
+        for (ConfigEntry configEntry : configEntries) {
+            if (Boolean.TRUE.equals(configEntry.getRestartRequired())) {
+                flaggedKeys.add(configEntry.getConfigKey());
+            }
+        }
+
+        Map<String, String> previousConfig = appliedConfig;
+        LazySecrets previousSecrets = appliedSecrets;
+        ConfigDiff diff = ConfigDiff.between(
+                previousConfig,
+                config,
+                key -> flaggedKeys.contains(key) || KeyPatternUtils.matchesAny(restartRequiredKeys, key)
+        );
+        appliedConfig = config;
+        appliedEntries = configEntries;
+        replaceSecrets(secrets);
+        configValues.publish(getConfigVersion(), appliedConfig, appliedSecrets);
+
+        if (diff.isRestartRequired()) {
+            log.info("Config refresh touches restart-required keys, restarting application");
+            return restart();
+        }
+
+        if (diff.isEmpty()) {
+            log.info("Config refresh contains no changes");
+            return CompletableFuture.completedFuture(null);
+        }
+
+        long start = System.nanoTime();
+
+        if (!HotRefresher.apply(context, diff, secrets)) {
+            log.info("Config refresh cannot be applied in place, restarting application");
+            return restart();
+        }
+
+        ConfigServerMetrics.record(LifecycleStage.HOT_REFRESH, System.nanoTime() - start);
+        changeNotifier.notify(previousConfig, previousSecrets, diff, secrets, context);
+        log.info("Hot refreshed {} config keys", diff.size());
+
+        return CompletableFuture.completedFuture(null);
+    }
+
+    public static String getConfigVersion() {
+        return primaryClient != null ? primaryClient.getVersion() : null;
+    }
+
+    /**
+     * Refresh topics of the additional scopes, excluding the service's own topic. In SHARED topic mode
+     * these are the keys of the scopes on the shared topic.
+     */
+    public static String[] getScopeTopics() {
+        if (clients == null) {
+            return new String[0];
+        }
+
+        return clients.stream().skip(1).map(ConfigClient::getTopic).toArray(String[]::new);
+    }
+
+    public static int getKeyCount() {
+        return appliedConfig.size();
+    }
+
+    /**
+     * The refresh topic: the service's own topic, or the shared topic in SHARED topic mode, where
+     * broadcasts are keyed by {@link #getServiceKey()}.
+     */
     public static String getTopic() {
+        return topicMode == TopicMode.SHARED ? sharedTopic : getServiceKey();
+    }
+
+    public static String getServiceKey() {
         return StringUtils.isNotBlank(serviceId) ? serviceId : secretKey;
     }
 
+    public static String getRolloutTopic() {
+        return String.format("%s.rollout", getServiceKey());
+    }
+
+    /**
+     * The partition of the shared topic a key is sent to. This matches Kafka's default partitioner for
+     * keyed records, so partitions stay stable for a given partition count.
+     */
+    public static int getSharedTopicPartition(String key) {
+        return Utils.toPositive(Utils.murmur2(key.getBytes(StandardCharsets.UTF_8))) % sharedTopicPartitionCount;
+    }
+
+    /**
+     * The partitions of the shared topic carrying the keys of this service and its scopes.
+     */
+    public static String[] getSharedTopicPartitions() {
+        Set<Integer> partitions = new TreeSet<>();
+        partitions.add(getSharedTopicPartition(getServiceKey()));
+
+        for (String scopeKey : getScopeTopics()) {
+            partitions.add(getSharedTopicPartition(scopeKey));
+        }
+
+        return partitions.stream().map(String::valueOf).toArray(String[]::new);
+    }
+
     public static String getGroupId() {
         return podName;
     }
@@ -0,0 +1,271 @@
+package com.ahirajustice.lib.configserver.client;
+
+import com.ahirajustice.lib.configserver.constants.SecurityConstants;
+import com.ahirajustice.lib.configserver.enums.LifecycleStage;
+import com.ahirajustice.lib.configserver.enums.WireFormat;
+import com.ahirajustice.lib.configserver.exceptions.ConfigFetchException;
+import com.ahirajustice.lib.configserver.exceptions.ConfigServerConfigurationException;
+import com.ahirajustice.lib.configserver.http.BinaryConfigCodec;
+import com.ahirajustice.lib.configserver.http.ConfigResponseReader;
+import com.ahirajustice.lib.configserver.http.ConfigServerHttpClient;
+import com.ahirajustice.lib.configserver.metrics.ConfigServerMetrics;
+import com.ahirajustice.lib.configserver.models.ConfigDelta;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResponse;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResult;
+import com.ahirajustice.lib.configserver.models.ConfigSnapshot;
+import com.ahirajustice.lib.configserver.snapshot.ConfigSnapshotStore;
+import com.ahirajustice.lib.configserver.utils.ConfigDigestUtils;
+import lombok.Getter;
+import org.apache.commons.lang3.StringUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Fetches the config of one scope, such as the service itself or a config set it shares with other
+ * services, and holds the last fetched entries and version of that scope. Each scope has its own refresh
+ * topic and, when snapshots are enabled, its own snapshot file.
+ */
+public class ConfigClient {
+
+    private static final List<MediaType> ACCEPT_BINARY = Arrays.asList(
+            BinaryConfigCodec.MEDIA_TYPE,
+            new MediaType(MediaType.APPLICATION_JSON, Collections.singletonMap("q", "0.9"))
+    );
+
+    @Getter
+    private final String name;
+    private final String baseUrl;
+    private final String secretKey;
+    private final String serviceId;
+    private final ConfigServerHttpClient httpClient;
+    private final ConfigSnapshotStore snapshotStore;
+
+    private Map<String, ConfigEntry> entries = new LinkedHashMap<>();
+    private String version;
+    private String digest;
+
+    public ConfigClient(String name, String baseUrl, String secretKey, String serviceId, ConfigServerHttpClient httpClient, ConfigSnapshotStore snapshotStore) {
+        this.name = name;
+        this.baseUrl = baseUrl;
+        this.secretKey = secretKey;
+        this.serviceId = serviceId;
+        this.httpClient = httpClient;
+        this.snapshotStore = snapshotStore;
+    }
+
+    public String getTopic() {
+        return StringUtils.isNotBlank(serviceId) ? serviceId : secretKey;
+    }
+
+    public synchronized String getVersion() {
+        return version;
+    }
+
+    public synchronized Map<String, ConfigEntry> getEntries() {
+        return Collections.unmodifiableMap(entries);
+    }
+
+    public synchronized String getDigest() {
+        if (digest == null) {
+            digest = ConfigDigestUtils.digest(entries.values());
+        }
+
+        return digest;
+    }
+
+    /**
+     * Fetches the content digest or version of this scope from config-server, a few bytes instead of the
+     * whole config set. Returns null when config-server does not serve digests.
+     */
+    public String fetchDigest() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, SecurityConstants.TOKEN_PREFIX + " " + secretKey);
+
+        try {
+            return httpClient.execute(String.format("%s/api/configs/digest", baseUrl), HttpMethod.GET, headers, response -> {
+                String body = StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+                ConfigServerMetrics.recordDigestFetch(body.length());
+
+                return StringUtils.strip(body.trim(), "\"");
+            });
+        }
+        catch (HttpClientErrorException.NotFound ex) {
+            return null;
+        }
+        catch (Exception ex) {
+            throw new ConfigFetchException(ex.getMessage());
+        }
+    }
+
+    /**
+     * A scope is in sync when the remote digest matches either its version or the content digest of its
+     * entries.
+     */
+    public synchronized boolean isInSync(String remoteDigest) {
+        return remoteDigest.equals(version) || remoteDigest.equalsIgnoreCase(getDigest());
+    }
+
+    public synchronized ConfigFetchResult fetch() {
+        return fetch(entry -> {});
+    }
+
+    /**
+     * Fetches the config of this scope, handing each entry of a full config set to the consumer as it is
+     * read from the response. The consumer is not called for deltas or unmodified responses, and is called
+     * again from the start when a failed request is retried.
+     */
+    public synchronized ConfigFetchResult fetch(Consumer<ConfigEntry> consumer) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.AUTHORIZATION, SecurityConstants.TOKEN_PREFIX + " " + secretKey);
+
+        if (httpClient.getWireFormat() == WireFormat.BINARY) {
+            headers.setAccept(ACCEPT_BINARY);
+        }
+
+        UriComponentsBuilder uriBuilder = UriComponentsBuilder.fromHttpUrl(String.format("%s/api/configs/fetch", baseUrl));
+
+        if (version != null) {
+            headers.setIfNoneMatch(String.format("\"%s\"", version));
+            uriBuilder.queryParam("sinceVersion", version);
+        }
+
+        long start = System.nanoTime();
+
+        try {
+            return httpClient.execute(uriBuilder.encode().toUriString(), HttpMethod.GET, headers, response -> {
+                if (response.getStatusCode() == HttpStatus.NOT_MODIFIED) {
+                    ConfigServerMetrics.recordFetch(0, false);
+                    return new ConfigFetchResult(false, version, new ArrayList<>(entries.values()));
+                }
+
+                Map<String, ConfigEntry> fetchedEntries = new LinkedHashMap<>();
+                ConfigFetchResponse fetchResponse = ConfigResponseReader.read(response.getBody(), response.getHeaders().getContentType(), entry -> {
+                    fetchedEntries.put(entry.getConfigKey(), entry);
+                    consumer.accept(entry);
+                });
+                ConfigServerMetrics.recordFetch(fetchResponse.getBytes(), true);
+
+                return applyFetchResponse(fetchResponse, fetchedEntries, parseETag(response.getHeaders().getETag()));
+            });
+        }
+        catch (ConfigServerConfigurationException ex) {
+            throw ex;
+        }
+        catch (Exception ex) {
+            throw new ConfigFetchException(ex.getMessage());
+        }
+        finally {
+            ConfigServerMetrics.record(LifecycleStage.FETCH, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * A full config set, read into the fetched entries, replaces the current entries. A {@link ConfigDelta}
+     * against the version sent in the request is merged into the current entries. The result is modified
+     * only when the content of the fetched entries differs from the current one, since a full response does
+     * not mean the config changed, for example when the version sent in the request was missing. Entries are
+     * compared directly, the content digest is only computed when asked for.
+     */
+    private ConfigFetchResult applyFetchResponse(ConfigFetchResponse response, Map<String, ConfigEntry> fetchedEntries, String eTag) {
+        String fetchedVersion = eTag;
+
+        if (response.isDelta()) {
+            ConfigDelta delta = response.getDelta();
+
+            fetchedEntries.putAll(entries);
+            delta.getRemoved().forEach(fetchedEntries::remove);
+            delta.getAdded().forEach(entry -> fetchedEntries.put(entry.getConfigKey(), entry));
+            delta.getChanged().forEach(entry -> fetchedEntries.put(entry.getConfigKey(), entry));
+
+            if (fetchedVersion == null) {
+                fetchedVersion = delta.getVersion();
+            }
+        }
+
+        boolean modified = !hasSameContent(fetchedEntries);
+
+        replace(fetchedEntries, fetchedVersion);
+
+        return new ConfigFetchResult(modified, fetchedVersion, new ArrayList<>(fetchedEntries.values()));
+    }
+
+    private synchronized boolean hasSameContent(Map<String, ConfigEntry> fetchedEntries) {
+        if (fetchedEntries.size() != entries.size()) {
+            return false;
+        }
+
+        for (ConfigEntry entry : fetchedEntries.values()) {
+            ConfigEntry current = entries.get(entry.getConfigKey());
+
+            if (current == null || !current.hasSameContent(entry)) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private static String parseETag(String eTag) {
+        if (StringUtils.isBlank(eTag)) {
+            return null;
+        }
+
+        return StringUtils.strip(StringUtils.removeStart(eTag, "W/"), "\"");
+    }
+
+    /**
+     * Replaces the entries of this scope, for config pushed to the application rather than fetched, and
+     * saves the snapshot.
+     */
+    public synchronized void replace(Map<String, ConfigEntry> configEntries, String configVersion) {
+        entries = new LinkedHashMap<>(configEntries);
+        version = configVersion;
+        digest = null;
+
+        if (snapshotStore != null) {
+            snapshotStore.save(new ConfigSnapshot(version, new ArrayList<>(entries.values())));
+        }
+    }
+
+    public synchronized void replace(List<ConfigEntry> configEntries, String configVersion) {
+        Map<String, ConfigEntry> replacement = new LinkedHashMap<>();
+        configEntries.forEach(entry -> replacement.put(entry.getConfigKey(), entry));
+
+        replace(replacement, configVersion);
+    }
+
+    /**
+     * Loads the entries of this scope from its snapshot. Returns false when snapshots are disabled or the
+     * snapshot is missing or invalid.
+     */
+    public synchronized boolean loadSnapshot() {
+        ConfigSnapshot snapshot = snapshotStore != null ? snapshotStore.load() : null;
+
+        if (snapshot == null) {
+            return false;
+        }
+
+        entries = new LinkedHashMap<>();
+        snapshot.getConfigEntries().forEach(entry -> entries.put(entry.getConfigKey(), entry));
+        version = snapshot.getVersion();
+        digest = null;
+
+        return true;
+    }
+
+}
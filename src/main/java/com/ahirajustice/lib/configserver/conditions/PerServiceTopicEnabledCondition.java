@@ -0,0 +1,16 @@
+package com.ahirajustice.lib.configserver.conditions;
+
+import com.ahirajustice.lib.configserver.ConfigServer;
+import com.ahirajustice.lib.configserver.enums.TopicMode;
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+
+public class PerServiceTopicEnabledCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        return ConfigServer.isEnabled() && ConfigServer.getTopicMode() == TopicMode.PER_SERVICE;
+    }
+
+}
@@ -2,6 +2,9 @@ package com.ahirajustice.lib.configserver.config;
 
 import com.ahirajustice.lib.configserver.ConfigServer;
 import com.ahirajustice.lib.configserver.conditions.ConfigServerEnabledCondition;
+import com.ahirajustice.lib.configserver.conditions.RolloutCoordinationEnabledCondition;
+import com.ahirajustice.lib.configserver.conditions.SharedTopicEnabledCondition;
+import com.ahirajustice.lib.configserver.enums.TopicMode;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.kafka.clients.CommonClientConfigs;
 import org.apache.kafka.clients.admin.AdminClientConfig;
@@ -23,6 +26,7 @@ import org.springframework.kafka.core.DefaultKafkaProducerFactory;
 import org.springframework.kafka.core.KafkaAdmin;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.core.ProducerFactory;
+import org.springframework.kafka.listener.ContainerProperties;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -43,6 +47,8 @@ public class KafkaConfig {
     private String sessionTimeoutMs;
     @Value(value = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getKafkaClientDnsLookup() ?: 'use_all_dns_ips'}")
     private String clientDnsLookup;
+    @Value(value = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getKafkaCompressionType() ?: 'none'}")
+    private String compressionType;
 
     // Topic Config
     @Bean
@@ -57,7 +63,14 @@ public class KafkaConfig {
 
     @Bean
     public NewTopic topic() {
-        return TopicBuilder.name(ConfigServer.getTopic()).partitions(1).build();
+        int partitions = ConfigServer.getTopicMode() == TopicMode.SHARED ? ConfigServer.getSharedTopicPartitionCount() : 1;
+        return TopicBuilder.name(ConfigServer.getTopic()).partitions(partitions).build();
+    }
+
+    @Bean
+    @Conditional(RolloutCoordinationEnabledCondition.class)
+    public NewTopic rolloutTopic() {
+        return TopicBuilder.name(ConfigServer.getRolloutTopic()).partitions(1).build();
     }
 
     // Producer Config
@@ -67,6 +80,7 @@ public class KafkaConfig {
         properties.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
         properties.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
         properties.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        properties.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
         properties.put("client.dns.lookup", clientDnsLookup);
         properties.put("session.timeout.ms", sessionTimeoutMs);
 
@@ -105,6 +119,31 @@ public class KafkaConfig {
         return factory;
     }
 
+    /**
+     * Consumer for the shared topic. Partitions are assigned manually and no consumer group is joined, so
+     * no offsets are committed and every start reads from the latest offset.
+     */
+    @Bean
+    @Conditional(SharedTopicEnabledCondition.class)
+    public ConcurrentKafkaListenerContainerFactory<String, String> sharedKafkaListenerContainerFactory() {
+        Map<String, Object> properties = new HashMap<>();
+
+        properties.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapAddress);
+        properties.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
+        properties.put(ConsumerConfig.ENABLE_AUTO_COMMIT_CONFIG, false);
+        properties.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "latest");
+        properties.put("client.dns.lookup", clientDnsLookup);
+
+        configureSasl(properties);
+
+        ConcurrentKafkaListenerContainerFactory<String, String> factory = new ConcurrentKafkaListenerContainerFactory<>();
+        factory.setConsumerFactory(new DefaultKafkaConsumerFactory<>(properties));
+        factory.getContainerProperties().setAckMode(ContainerProperties.AckMode.MANUAL);
+
+        return factory;
+    }
+
     private void configureSasl(Map<String, Object> properties) {
         if ("SASL_SSL".equals(securityProtocol)) {
             if (StringUtils.isEmpty(saslJaasConfig)) {
@@ -0,0 +1,13 @@
+package com.ahirajustice.lib.configserver.constants;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class KafkaConstants {
+
+    public static final String ORIGIN_HEADER = "config-server-origin";
+    public static final String CORRELATION_ID_HEADER = "config-server-correlation-id";
+    public static final String VERSION_HEADER = "config-server-version";
+
+}
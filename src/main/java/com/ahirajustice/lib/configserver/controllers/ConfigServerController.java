@@ -1,25 +1,41 @@
 package com.ahirajustice.lib.configserver.controllers;
 
 import com.ahirajustice.lib.configserver.ConfigServer;
+import com.ahirajustice.lib.configserver.constants.KafkaConstants;
+import com.ahirajustice.lib.configserver.enums.LifecycleStage;
+import com.ahirajustice.lib.configserver.enums.RefreshPhase;
+import com.ahirajustice.lib.configserver.enums.TopicMode;
+import com.ahirajustice.lib.configserver.exceptions.ConfigInitializationException;
 import com.ahirajustice.lib.configserver.exceptions.ConfigRefreshBroadcastException;
+import com.ahirajustice.lib.configserver.metrics.ConfigServerMetrics;
 import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.RefreshStatus;
 import com.ahirajustice.lib.configserver.models.SimpleMessageResponse;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.kafka.support.SendResult;
 import org.springframework.util.concurrent.FailureCallback;
 import org.springframework.util.concurrent.ListenableFuture;
 import org.springframework.util.concurrent.SuccessCallback;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 @RestController
 @RequiredArgsConstructor
@@ -29,39 +45,101 @@ public class ConfigServerController {
     private final KafkaTemplate<String, String> kafkaTemplate;
 
     @RequestMapping(path = "/refresh", method = RequestMethod.POST)
-    public ResponseEntity<SimpleMessageResponse> refreshConfig(@Valid @RequestBody List<ConfigEntry> request) {
+    public ResponseEntity<?> refreshConfig(
+            @Valid @RequestBody List<ConfigEntry> request,
+            @RequestHeader(name = "X-Config-Version", required = false) String version
+    ) {
         if (!ConfigServer.isEnabled()) {
             SimpleMessageResponse response = SimpleMessageResponse.fail("Config Server is not enabled for this service");
             return ResponseEntity.badRequest().body(response);
         }
 
-        broadcastConfigRefresh(ConfigServer.getTopic(), ConfigServer.getGroupId());
-        SimpleMessageResponse response = ConfigServer.refreshConfig(request);
+        try {
+            RefreshStatus status = ConfigServer.getRefreshTracker().submit(refreshStatus -> {
+                String correlationId = refreshStatus.getId();
+                broadcastConfigRefresh(ConfigServer.getTopic(), ConfigServer.buildRefreshMessage(request, version), correlationId, version);
+                refreshStatus.recordPhase(RefreshPhase.BROADCAST);
+
+                SimpleMessageResponse response = ConfigServer.refreshConfig(request, version, refreshStatus::recordPhase);
+                if (!response.isSuccess()) {
+                    throw new ConfigInitializationException(response.getMessage());
+                }
+            });
+
+            return ResponseEntity.accepted().body(status);
+        }
+        catch (RejectedExecutionException ex) {
+            SimpleMessageResponse response = SimpleMessageResponse.fail("Too many config refreshes in progress, retry later");
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(response);
+        }
+    }
+
+    @RequestMapping(path = "/refresh/{id}", method = RequestMethod.GET)
+    public ResponseEntity<?> getRefreshStatus(@PathVariable String id) {
+        RefreshStatus status = ConfigServer.isEnabled() ? ConfigServer.getRefreshTracker().getStatus(id) : null;
 
-        return ResponseEntity.ok().body(response);
+        if (status == null) {
+            SimpleMessageResponse response = SimpleMessageResponse.fail(String.format("Config refresh %s not found", id));
+            return ResponseEntity.status(HttpStatus.NOT_FOUND).body(response);
+        }
+
+        return ResponseEntity.ok().body(status);
     }
 
     public void broadcastConfigRefresh(String topicName, String message) {
+        broadcastConfigRefresh(topicName, message, UUID.randomUUID().toString(), null);
+    }
+
+    public void broadcastConfigRefresh(String topicName, String message, String correlationId, String version) {
+        ProducerRecord<String, String> record = createRecord(topicName, message);
+        addHeader(record, KafkaConstants.ORIGIN_HEADER, ConfigServer.getInstanceId());
+        addHeader(record, KafkaConstants.CORRELATION_ID_HEADER, correlationId);
+        addHeader(record, KafkaConstants.VERSION_HEADER, version);
+
+        ConfigServer.markBroadcastSent(correlationId);
+        long start = System.nanoTime();
+
         try {
-            ListenableFuture<SendResult<String, String>> future = kafkaTemplate.send(topicName, message);
-            future.addCallback(onSuccess(message), onFailure(message));
-            future.get();
+            ListenableFuture<SendResult<String, String>> future = kafkaTemplate.send(record);
+            future.addCallback(onSuccess(correlationId), onFailure(correlationId));
+            future.get(ConfigServer.getRefreshBroadcastTimeoutMs(), TimeUnit.MILLISECONDS);
         } catch (InterruptedException | ExecutionException ex) {
             throw new ConfigRefreshBroadcastException(ex.getMessage());
+        } catch (TimeoutException ex) {
+            throw new ConfigRefreshBroadcastException(String.format("Refresh broadcast was not acknowledged within %dms", ConfigServer.getRefreshBroadcastTimeoutMs()));
+        } finally {
+            ConfigServerMetrics.record(LifecycleStage.BROADCAST, System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * On the shared topic, broadcasts are keyed by the service and sent to the partition its pods listen on.
+     */
+    private ProducerRecord<String, String> createRecord(String topicName, String message) {
+        if (ConfigServer.getTopicMode() != TopicMode.SHARED) {
+            return new ProducerRecord<>(topicName, message);
+        }
+
+        String key = ConfigServer.getServiceKey();
+        return new ProducerRecord<>(topicName, ConfigServer.getSharedTopicPartition(key), key, message);
+    }
+
+    private void addHeader(ProducerRecord<String, String> record, String name, String value) {
+        if (value != null) {
+            record.headers().add(name, value.getBytes(StandardCharsets.UTF_8));
         }
     }
 
-    private SuccessCallback<SendResult<String, String>> onSuccess(String message) {
+    private SuccessCallback<SendResult<String, String>> onSuccess(String correlationId) {
         return (success) -> {
             if (success != null) {
-                ConfigServer.setBroadcaster(true);
-                log.info("Sent message=[{}] with offset=[{}]", message, success.getRecordMetadata().offset());
+                log.info("Sent refresh broadcast [{}] with offset=[{}]", correlationId, success.getRecordMetadata().offset());
             }
         };
     }
 
-    private FailureCallback onFailure(String message) {
-        return (failure) -> log.error("Unable to send message=[{}] due to : {}", message, failure.getMessage());
+    private FailureCallback onFailure(String correlationId) {
+        return (failure) -> log.error("Unable to send refresh broadcast [{}] due to : {}", correlationId, failure.getMessage());
     }
 
 }
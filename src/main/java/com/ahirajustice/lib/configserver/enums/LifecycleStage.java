@@ -0,0 +1,13 @@
+package com.ahirajustice.lib.configserver.enums;
+
+public enum LifecycleStage {
+
+    FETCH,
+    DECRYPT,
+    PERSIST,
+    RESTART,
+    HOT_REFRESH,
+    BROADCAST,
+    RECEIVE_LAG
+
+}
@@ -0,0 +1,10 @@
+package com.ahirajustice.lib.configserver.enums;
+
+public enum RefreshState {
+
+    PENDING,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+
+}
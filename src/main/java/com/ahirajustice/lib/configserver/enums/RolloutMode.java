@@ -0,0 +1,9 @@
+package com.ahirajustice.lib.configserver.enums;
+
+public enum RolloutMode {
+
+    NONE,
+    JITTER,
+    STAGGER
+
+}
@@ -0,0 +1,8 @@
+package com.ahirajustice.lib.configserver.enums;
+
+public enum WireFormat {
+
+    JSON,
+    BINARY
+
+}
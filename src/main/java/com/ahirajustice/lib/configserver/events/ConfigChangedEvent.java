@@ -0,0 +1,19 @@
+package com.ahirajustice.lib.configserver.events;
+
+import com.ahirajustice.lib.configserver.models.ConfigChange;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+@Getter
+public class ConfigChangedEvent extends ApplicationEvent {
+
+    private final List<ConfigChange> changes;
+
+    public ConfigChangedEvent(Object source, List<ConfigChange> changes) {
+        super(source);
+        this.changes = changes;
+    }
+
+}
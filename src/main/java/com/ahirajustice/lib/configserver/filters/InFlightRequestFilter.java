@@ -0,0 +1,80 @@
+package com.ahirajustice.lib.configserver.filters;
+
+import com.ahirajustice.lib.configserver.conditions.DrainRestartStrategyCondition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts the requests being processed, so a drain-and-swap restart can wait for them to complete before
+ * closing the application context.
+ */
+@Component
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Conditional(DrainRestartStrategyCondition.class)
+public class InFlightRequestFilter extends OncePerRequestFilter {
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Object idle = new Object();
+    private volatile boolean draining;
+
+    /**
+     * Requests only touch the counter. The monitor is used only while a drain is waiting for the count to
+     * reach zero.
+     */
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        inFlight.incrementAndGet();
+
+        try {
+            filterChain.doFilter(request, response);
+        }
+        finally {
+            if (inFlight.decrementAndGet() == 0 && draining) {
+                synchronized (idle) {
+                    idle.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Waits until no request is in flight. Returns false when requests are still in flight after the timeout.
+     */
+    public boolean awaitIdle(long timeoutMs) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMs;
+        draining = true;
+
+        try {
+            synchronized (idle) {
+                while (inFlight.get() > 0) {
+                    long remaining = deadline - System.currentTimeMillis();
+
+                    if (remaining <= 0) {
+                        return false;
+                    }
+
+                    idle.wait(remaining);
+                }
+            }
+        }
+        finally {
+            draining = false;
+        }
+
+        return true;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+}
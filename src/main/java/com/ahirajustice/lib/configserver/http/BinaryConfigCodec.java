@@ -0,0 +1,373 @@
+package com.ahirajustice.lib.configserver.http;
+
+import com.ahirajustice.lib.configserver.exceptions.ConfigFetchException;
+import com.ahirajustice.lib.configserver.models.CipherText;
+import com.ahirajustice.lib.configserver.models.ConfigDelta;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResponse;
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.http.MediaType;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * Compact binary encoding of config fetch responses. Field names are not repeated per entry, lengths are
+ * unsigned LEB128 varints, strings are UTF-8 and encrypted values are raw ciphertext instead of Base64.
+ * The wrapped data key of envelope encrypted values is sent once per payload in a key table.
+ *
+ * <pre>
+ * payload   = "CSB" version:u8 kind:u8 keys (entries | delta)     kind 0 = config set, 1 = delta
+ * keys      = count:varint bytes*                                 wrapped data keys
+ * entries   = count:varint entry*
+ * delta     = version:string added:entries changed:entries removed:(count:varint string*)
+ * entry     = flags:u8 key:string value                           flags: 1 encrypted, 2 restartRequired
+ * value     = string                                              plain value
+ *           | 1:u8 bytes                                          RSA encrypted value
+ *           | 2:u8 keyIndex:varint iv:bytes ciphertext:bytes      envelope encrypted value
+ * string    = bytes                                               UTF-8
+ * bytes     = length:varint u8*
+ * </pre>
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class BinaryConfigCodec {
+
+    public static final MediaType MEDIA_TYPE = MediaType.parseMediaType("application/vnd.config-server.binary");
+
+    /**
+     * Counts and lengths are read from the payload, so they are checked against this limit before anything
+     * is sized from them.
+     */
+    public static final long MAX_PAYLOAD_BYTES = 64L * 1024 * 1024;
+
+    private static final byte[] MAGIC = {'C', 'S', 'B'};
+    private static final int VERSION = 1;
+    private static final int KIND_CONFIG_SET = 0;
+    private static final int KIND_DELTA = 1;
+    private static final int FLAG_ENCRYPTED = 1;
+    private static final int FLAG_RESTART_REQUIRED = 2;
+    private static final int SCHEME_RSA = 1;
+    private static final int SCHEME_ENVELOPE = 2;
+    private static final int MIN_ENTRY_BYTES = 2;
+
+    public static ConfigFetchResponse read(InputStream in) throws IOException {
+        List<ConfigEntry> configEntries = new ArrayList<>();
+        ConfigFetchResponse response = read(in, configEntries::add);
+
+        return response.isDelta() ? response : new ConfigFetchResponse(configEntries, null, response.getBytes());
+    }
+
+    /**
+     * Hands each entry of a full config set to the consumer as soon as it is read. The entries of the
+     * returned response are then null.
+     */
+    public static ConfigFetchResponse read(InputStream in, Consumer<ConfigEntry> consumer) throws IOException {
+        Reader reader = new Reader(new BufferedInputStream(in));
+
+        for (byte b : MAGIC) {
+            if (reader.readByte() != b) {
+                throw new ConfigFetchException("Config server returned an invalid binary response");
+            }
+        }
+
+        if (reader.readByte() != VERSION) {
+            throw new ConfigFetchException("Config server returned an unsupported binary response version");
+        }
+
+        int kind = reader.readByte();
+        int keyCount = reader.readCount(1);
+        List<byte[]> keys = new ArrayList<>();
+        for (int i = 0; i < keyCount; i++) {
+            keys.add(reader.readBytes());
+        }
+
+        if (kind == KIND_CONFIG_SET) {
+            readEntries(reader, keys, consumer);
+            return new ConfigFetchResponse(null, null, reader.count);
+        }
+
+        if (kind == KIND_DELTA) {
+            ConfigDelta delta = new ConfigDelta();
+            String version = reader.readString();
+            delta.setVersion(version.isEmpty() ? null : version);
+            readEntries(reader, keys, delta.getAdded()::add);
+            readEntries(reader, keys, delta.getChanged()::add);
+
+            int removed = reader.readCount(1);
+            for (int i = 0; i < removed; i++) {
+                delta.getRemoved().add(reader.readString());
+            }
+
+            return new ConfigFetchResponse(null, delta, reader.count);
+        }
+
+        throw new ConfigFetchException(String.format("Config server returned an unknown binary response kind %d", kind));
+    }
+
+    private static void readEntries(Reader reader, List<byte[]> keys, Consumer<ConfigEntry> consumer) throws IOException {
+        int count = reader.readCount(MIN_ENTRY_BYTES);
+
+        for (int i = 0; i < count; i++) {
+            int flags = reader.readByte();
+            ConfigEntry entry = new ConfigEntry();
+            entry.setConfigKey(reader.readString());
+            entry.setEncrypted((flags & FLAG_ENCRYPTED) != 0);
+            entry.setRestartRequired((flags & FLAG_RESTART_REQUIRED) != 0);
+
+            if ((flags & FLAG_ENCRYPTED) == 0) {
+                entry.setConfigValue(reader.readString());
+            }
+            else {
+                entry.setCipherText(readCipherText(reader, keys));
+            }
+
+            consumer.accept(entry);
+        }
+    }
+
+    private static CipherText readCipherText(Reader reader, List<byte[]> keys) throws IOException {
+        int scheme = reader.readByte();
+
+        if (scheme == SCHEME_RSA) {
+            return CipherText.rsa(reader.readBytes());
+        }
+
+        if (scheme == SCHEME_ENVELOPE) {
+            int keyIndex = reader.readVarint();
+
+            if (keyIndex >= keys.size()) {
+                throw new ConfigFetchException("Config server returned a binary response with an unknown data key");
+            }
+
+            return CipherText.envelope(keys.get(keyIndex), reader.readBytes(), reader.readBytes());
+        }
+
+        throw new ConfigFetchException(String.format("Config server returned an unknown encryption scheme %d", scheme));
+    }
+
+    /**
+     * Writes a full config set, for config-server implementations and test stubs.
+     */
+    public static void write(OutputStream out, List<ConfigEntry> configEntries) throws IOException {
+        Writer writer = new Writer(out, configEntries);
+        writer.writeHeader(KIND_CONFIG_SET);
+        writer.writeEntries(configEntries);
+        writer.flush();
+    }
+
+    public static void write(OutputStream out, ConfigDelta delta) throws IOException {
+        List<ConfigEntry> configEntries = new ArrayList<>(delta.getAdded());
+        configEntries.addAll(delta.getChanged());
+
+        Writer writer = new Writer(out, configEntries);
+        writer.writeHeader(KIND_DELTA);
+        writer.writeString(delta.getVersion() != null ? delta.getVersion() : "");
+        writer.writeEntries(delta.getAdded());
+        writer.writeEntries(delta.getChanged());
+        writer.writeVarint(delta.getRemoved().size());
+        for (String key : delta.getRemoved()) {
+            writer.writeString(key);
+        }
+        writer.flush();
+    }
+
+    private static class Reader {
+
+        private final InputStream in;
+        private long count;
+
+        private Reader(InputStream in) {
+            this.in = in;
+        }
+
+        private int readByte() throws IOException {
+            int b = in.read();
+
+            if (b < 0) {
+                throw new ConfigFetchException("Config server returned a truncated binary response");
+            }
+
+            count++;
+            return b;
+        }
+
+        private int readVarint() throws IOException {
+            int value = 0;
+
+            for (int shift = 0; shift < 32; shift += 7) {
+                int b = readByte();
+                value |= (b & 0x7f) << shift;
+
+                if ((b & 0x80) == 0) {
+                    if (value < 0) {
+                        break;
+                    }
+
+                    return value;
+                }
+            }
+
+            throw new ConfigFetchException("Config server returned a binary response with an invalid length");
+        }
+
+        /**
+         * Reads the number of items that follow, each taking at least the given number of bytes, and checks
+         * that they fit in the rest of the maximum payload size.
+         */
+        private int readCount(int minItemBytes) throws IOException {
+            int itemCount = readVarint();
+
+            if ((long) itemCount * minItemBytes > MAX_PAYLOAD_BYTES - count) {
+                throw new ConfigFetchException(String.format("Config server returned a binary response declaring %d items, more than fit in %d bytes", itemCount, MAX_PAYLOAD_BYTES));
+            }
+
+            return itemCount;
+        }
+
+        /**
+         * Checks the length against the rest of the maximum payload size, and reads the bytes as they arrive
+         * rather than allocating the declared length up front.
+         */
+        private byte[] readBytes() throws IOException {
+            int length = readVarint();
+
+            if (length > MAX_PAYLOAD_BYTES - count) {
+                throw new ConfigFetchException(String.format("Config server returned a binary response declaring a %d byte value, more than fits in %d bytes", length, MAX_PAYLOAD_BYTES));
+            }
+
+            byte[] bytes = in.readNBytes(length);
+
+            if (bytes.length < length) {
+                throw new ConfigFetchException("Config server returned a truncated binary response");
+            }
+
+            count += length;
+            return bytes;
+        }
+
+        private String readString() throws IOException {
+            return new String(readBytes(), StandardCharsets.UTF_8);
+        }
+
+    }
+
+    private static class Writer {
+
+        private final OutputStream out;
+        private final Map<ByteBuffer, Integer> keyIndices = new LinkedHashMap<>();
+
+        /**
+         * Collects the distinct wrapped data keys of the entries up front, as the key table precedes them.
+         */
+        private Writer(OutputStream out, Collection<ConfigEntry> configEntries) {
+            this.out = new BufferedOutputStream(out);
+
+            for (ConfigEntry entry : configEntries) {
+                CipherText cipherText = toCipherText(entry);
+
+                if (cipherText != null && cipherText.isEnvelope()) {
+                    keyIndices.putIfAbsent(ByteBuffer.wrap(cipherText.getWrappedKey()), keyIndices.size());
+                }
+            }
+        }
+
+        private void writeHeader(int kind) throws IOException {
+            out.write(MAGIC);
+            out.write(VERSION);
+            out.write(kind);
+
+            writeVarint(keyIndices.size());
+            for (ByteBuffer key : keyIndices.keySet()) {
+                writeBytes(key.array());
+            }
+        }
+
+        private void writeEntries(List<ConfigEntry> configEntries) throws IOException {
+            writeVarint(configEntries.size());
+
+            for (ConfigEntry entry : configEntries) {
+                CipherText cipherText = toCipherText(entry);
+                int flags = (cipherText != null ? FLAG_ENCRYPTED : 0) | (Boolean.TRUE.equals(entry.getRestartRequired()) ? FLAG_RESTART_REQUIRED : 0);
+
+                out.write(flags);
+                writeString(entry.getConfigKey());
+
+                if (cipherText == null) {
+                    writeString(entry.getConfigValue() != null ? entry.getConfigValue() : "");
+                }
+                else if (!cipherText.isEnvelope()) {
+                    out.write(SCHEME_RSA);
+                    writeBytes(cipherText.getData());
+                }
+                else {
+                    out.write(SCHEME_ENVELOPE);
+                    writeVarint(keyIndices.get(ByteBuffer.wrap(cipherText.getWrappedKey())));
+                    writeBytes(cipherText.getIv());
+                    writeBytes(cipherText.getData());
+                }
+            }
+        }
+
+        private void writeVarint(int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+            }
+
+            out.write(value);
+        }
+
+        private void writeBytes(byte[] bytes) throws IOException {
+            writeVarint(bytes.length);
+            out.write(bytes);
+        }
+
+        private void writeString(String value) throws IOException {
+            writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        }
+
+        private void flush() throws IOException {
+            out.flush();
+        }
+
+        private static CipherText toCipherText(ConfigEntry entry) {
+            if (!Boolean.TRUE.equals(entry.getEncrypted())) {
+                return null;
+            }
+
+            if (entry.getCipherText() != null) {
+                return entry.getCipherText();
+            }
+
+            String value = entry.getConfigValue();
+            Base64.Decoder decoder = Base64.getDecoder();
+
+            if (!value.startsWith(CipherUtils.ENVELOPE_PREFIX)) {
+                return CipherText.rsa(decoder.decode(value));
+            }
+
+            String[] parts = value.substring(CipherUtils.ENVELOPE_PREFIX.length()).split(":", -1);
+            if (parts.length != 3) {
+                throw new IllegalArgumentException(String.format("Envelope encrypted value of %s is malformed", entry.getConfigKey()));
+            }
+
+            return CipherText.envelope(decoder.decode(parts[0]), decoder.decode(parts[1]), decoder.decode(parts[2]));
+        }
+
+    }
+
+}
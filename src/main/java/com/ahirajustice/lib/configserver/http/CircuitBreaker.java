@@ -0,0 +1,55 @@
+package com.ahirajustice.lib.configserver.http;
+
+/**
+ * Opens after a number of consecutive failures and rejects calls until the cooldown has passed. After
+ * the cooldown a single trial call is let through, which closes the breaker on success or reopens it on
+ * failure.
+ */
+public class CircuitBreaker {
+
+    private final int threshold;
+    private final long cooldownMs;
+
+    private int consecutiveFailures;
+    private long openedAt = -1;
+    private boolean trialInProgress;
+
+    public CircuitBreaker(int threshold, long cooldownMs) {
+        this.threshold = threshold;
+        this.cooldownMs = cooldownMs;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (threshold <= 0 || openedAt < 0) {
+            return true;
+        }
+
+        if (trialInProgress || System.currentTimeMillis() - openedAt < cooldownMs) {
+            return false;
+        }
+
+        trialInProgress = true;
+        return true;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        openedAt = -1;
+        trialInProgress = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+
+        if (trialInProgress || (threshold > 0 && consecutiveFailures >= threshold)) {
+            openedAt = System.currentTimeMillis();
+        }
+
+        trialInProgress = false;
+    }
+
+    public synchronized boolean isOpen() {
+        return openedAt >= 0;
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.ahirajustice.lib.configserver.http;
+
+import com.ahirajustice.lib.configserver.exceptions.ConfigFetchException;
+import com.ahirajustice.lib.configserver.models.ConfigDelta;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResponse;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.http.MediaType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads config fetch responses with a streaming parser, binding one entry at a time, so neither the raw
+ * body nor a JSON tree of it is held in memory. A JSON array is a full config set and a JSON object is a
+ * {@link ConfigDelta}. Responses in the {@link BinaryConfigCodec} format are read by the codec. A malformed
+ * response fails with a {@link ConfigFetchException}, while an IOException means reading the body failed.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ConfigResponseReader {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+    private static final ObjectReader entryReader = objectMapper.readerFor(ConfigEntry.class);
+    private static final JsonFactory jsonFactory = objectMapper.getFactory();
+
+    public static ConfigFetchResponse read(InputStream in, MediaType contentType) throws IOException {
+        List<ConfigEntry> configEntries = new ArrayList<>();
+        ConfigFetchResponse response = read(in, contentType, configEntries::add);
+
+        return response.isDelta() ? response : new ConfigFetchResponse(configEntries, null, response.getBytes());
+    }
+
+    /**
+     * Hands each entry of a full config set to the consumer as soon as it is read, without collecting them,
+     * so the caller can decrypt and apply them one at a time. The entries of the returned response are then
+     * null. Deltas are small and are returned whole.
+     */
+    public static ConfigFetchResponse read(InputStream in, MediaType contentType, Consumer<ConfigEntry> consumer) throws IOException {
+        if (contentType != null && BinaryConfigCodec.MEDIA_TYPE.isCompatibleWith(contentType)) {
+            return BinaryConfigCodec.read(in, consumer);
+        }
+
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            JsonToken token = parser.nextToken();
+
+            if (token == JsonToken.START_ARRAY) {
+                readEntries(parser, consumer);
+
+                return new ConfigFetchResponse(null, null, parser.getCurrentLocation().getByteOffset());
+            }
+
+            if (token == JsonToken.START_OBJECT) {
+                ConfigDelta delta = readDelta(parser);
+
+                return new ConfigFetchResponse(null, delta, parser.getCurrentLocation().getByteOffset());
+            }
+
+            throw new ConfigFetchException("Config server returned an empty or invalid response");
+        }
+        catch (JsonProcessingException ex) {
+            throw new ConfigFetchException(String.format("Config server returned an invalid response: %s", ex.getOriginalMessage()));
+        }
+    }
+
+    private static ConfigDelta readDelta(JsonParser parser) throws IOException {
+        ConfigDelta delta = new ConfigDelta();
+
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.getCurrentName();
+            JsonToken value = parser.nextToken();
+
+            if ("version".equals(field)) {
+                delta.setVersion(value == JsonToken.VALUE_NULL ? null : parser.getValueAsString());
+            }
+            else if ("added".equals(field) && value == JsonToken.START_ARRAY) {
+                readEntries(parser, delta.getAdded()::add);
+            }
+            else if ("changed".equals(field) && value == JsonToken.START_ARRAY) {
+                readEntries(parser, delta.getChanged()::add);
+            }
+            else if ("removed".equals(field) && value == JsonToken.START_ARRAY) {
+                for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                    if (token != JsonToken.VALUE_STRING) {
+                        throw new ConfigFetchException(String.format("Config server returned an invalid removed key, unexpected %s", token));
+                    }
+
+                    delta.getRemoved().add(parser.getText());
+                }
+            }
+            else {
+                parser.skipChildren();
+            }
+        }
+
+        if (parser.currentToken() != JsonToken.END_OBJECT) {
+            throw new ConfigFetchException(String.format("Config server returned an invalid config delta, unexpected %s", parser.currentToken()));
+        }
+
+        return delta;
+    }
+
+    private static void readEntries(JsonParser parser, Consumer<ConfigEntry> consumer) throws IOException {
+        for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+            if (token != JsonToken.START_OBJECT) {
+                throw new ConfigFetchException(String.format("Config server returned an invalid config entry, unexpected %s", token));
+            }
+
+            consumer.accept(entryReader.readValue(parser));
+        }
+    }
+
+}
@@ -0,0 +1,133 @@
+package com.ahirajustice.lib.configserver.http;
+
+import com.ahirajustice.lib.configserver.enums.WireFormat;
+import com.ahirajustice.lib.configserver.exceptions.ConfigFetchException;
+import com.ahirajustice.lib.configserver.models.HttpClientSettings;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.ResponseExtractor;
+import org.springframework.web.client.RestTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Shared HTTP client for config-server calls. Connections are pooled and kept alive across fetches,
+ * responses are transparently gzip decompressed, and connect and read timeouts are bounded. Calls failing
+ * with an I/O error, a 5xx or a 429 are retried with exponential backoff and full jitter, and a circuit
+ * breaker fails calls fast while config-server keeps failing.
+ */
+@Slf4j
+public class ConfigServerHttpClient {
+
+    private final RestTemplate restTemplate;
+    private final HttpClientSettings settings;
+    private final CircuitBreaker circuitBreaker;
+
+    public ConfigServerHttpClient(HttpClientSettings settings) {
+        this.settings = settings;
+        this.circuitBreaker = new CircuitBreaker(settings.getCircuitBreakerThreshold(), settings.getCircuitBreakerCooldownMs());
+        this.restTemplate = new RestTemplate(new HttpComponentsClientHttpRequestFactory(createHttpClient(settings)));
+    }
+
+    public WireFormat getWireFormat() {
+        return settings.getWireFormat();
+    }
+
+    private static CloseableHttpClient createHttpClient(HttpClientSettings settings) {
+        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
+        connectionManager.setMaxTotal(settings.getMaxConnections());
+        connectionManager.setDefaultMaxPerRoute(settings.getMaxConnections());
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(settings.getConnectTimeoutMs())
+                .setConnectionRequestTimeout(settings.getConnectTimeoutMs())
+                .setSocketTimeout(settings.getReadTimeoutMs())
+                .setContentCompressionEnabled(true)
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .disableAutomaticRetries()
+                .build();
+    }
+
+    /**
+     * Executes the request and hands the response to the extractor, which can read the body as a stream.
+     * The extractor is called again for each retried attempt.
+     */
+    public <T> T execute(String url, HttpMethod method, HttpHeaders headers, ResponseExtractor<T> responseExtractor) {
+        for (int attempt = 0; ; attempt++) {
+            if (!circuitBreaker.tryAcquire()) {
+                throw new ConfigFetchException("Config server circuit breaker is open, not calling config server");
+            }
+
+            try {
+                T response = restTemplate.execute(url, method, request -> request.getHeaders().putAll(headers), responseExtractor);
+                circuitBreaker.onSuccess();
+
+                return response;
+            }
+            catch (RuntimeException ex) {
+                if (!isRetryable(ex)) {
+                    circuitBreaker.onSuccess();
+                    throw ex;
+                }
+
+                circuitBreaker.onFailure();
+
+                if (attempt >= settings.getMaxRetries() || circuitBreaker.isOpen()) {
+                    throw ex;
+                }
+
+                long backoff = getBackoff(attempt);
+                log.warn("Config server call failed ({}), retrying in {}ms", ex.getMessage(), backoff);
+                sleep(backoff);
+            }
+        }
+    }
+
+    /**
+     * Connect and read failures, which RestTemplate wraps in a ResourceAccessException, are retried. A
+     * response that cannot be parsed is not: the readers fail with a {@link ConfigFetchException}, which
+     * RestTemplate passes through, and fetching the same payload again would not help.
+     */
+    private boolean isRetryable(RuntimeException ex) {
+        if (ex instanceof ResourceAccessException) {
+            return !(ex.getCause() instanceof JsonProcessingException);
+        }
+
+        if (ex instanceof HttpStatusCodeException) {
+            HttpStatus status = ((HttpStatusCodeException) ex).getStatusCode();
+            return status.is5xxServerError() || status == HttpStatus.TOO_MANY_REQUESTS;
+        }
+
+        return false;
+    }
+
+    private long getBackoff(int attempt) {
+        long ceiling = Math.min(settings.getRetryMaxBackoffMs(), settings.getRetryBackoffMs() << Math.min(attempt, 20));
+        return ThreadLocalRandom.current().nextLong(ceiling + 1);
+    }
+
+    private void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ConfigFetchException("Interrupted while waiting to retry config server call");
+        }
+    }
+
+}
@@ -0,0 +1,12 @@
+package com.ahirajustice.lib.configserver.listeners;
+
+import com.ahirajustice.lib.configserver.models.ConfigChange;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface ConfigChangeListener {
+
+    void onChange(List<ConfigChange> changes);
+
+}
@@ -1,28 +1,52 @@
 package com.ahirajustice.lib.configserver.listeners;
 
 import com.ahirajustice.lib.configserver.ConfigServer;
-import com.ahirajustice.lib.configserver.conditions.ConfigServerEnabledCondition;
+import com.ahirajustice.lib.configserver.conditions.PerServiceTopicEnabledCondition;
+import com.ahirajustice.lib.configserver.constants.KafkaConstants;
+import com.ahirajustice.lib.configserver.enums.LifecycleStage;
+import com.ahirajustice.lib.configserver.metrics.ConfigServerMetrics;
 import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
 import org.springframework.context.annotation.Conditional;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
 @Component
 @Slf4j
-@Conditional(ConfigServerEnabledCondition.class)
+@Conditional(PerServiceTopicEnabledCondition.class)
 public class ConfigRefreshListener {
 
     @KafkaListener(
             topics = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getTopic()}",
             groupId = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getGroupId()}"
     )
-    public void listenForRestart(String message) {
-        if (!ConfigServer.isBroadcaster()) {
-            log.info("Service config refresh event received from {}", message);
-            ConfigServer.pullConfig();
+    public void listenForRestart(ConsumerRecord<String, String> record) {
+        handle(record);
+    }
+
+    static void handle(ConsumerRecord<String, String> record) {
+        String origin = getHeader(record, KafkaConstants.ORIGIN_HEADER);
+        String correlationId = getHeader(record, KafkaConstants.CORRELATION_ID_HEADER);
+        String version = getHeader(record, KafkaConstants.VERSION_HEADER);
+
+        if (record.timestamp() > 0) {
+            long lagMs = Math.max(0, System.currentTimeMillis() - record.timestamp());
+            ConfigServerMetrics.record(LifecycleStage.RECEIVE_LAG, TimeUnit.MILLISECONDS.toNanos(lagMs));
         }
 
-        ConfigServer.setBroadcaster(false);
+        if (ConfigServer.shouldApplyBroadcast(origin, correlationId, version, record.value())) {
+            log.info("Service config refresh event {} received from {}", correlationId, origin);
+            ConfigServer.requestRefresh(record.value());
+        }
+    }
+
+    private static String getHeader(ConsumerRecord<String, String> record, String name) {
+        Header header = record.headers().lastHeader(name);
+        return header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
     }
 
 }
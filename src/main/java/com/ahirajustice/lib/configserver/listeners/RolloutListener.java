@@ -0,0 +1,22 @@
+package com.ahirajustice.lib.configserver.listeners;
+
+import com.ahirajustice.lib.configserver.ConfigServer;
+import com.ahirajustice.lib.configserver.conditions.RolloutCoordinationEnabledCondition;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Component
+@Conditional(RolloutCoordinationEnabledCondition.class)
+public class RolloutListener {
+
+    @KafkaListener(
+            topics = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getRolloutTopic()}",
+            groupId = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getGroupId()}"
+    )
+    public void listenForRolloutEvents(ConsumerRecord<String, String> record) {
+        ConfigServer.getRolloutCoordinator().onPeerEvent(record.key(), record.value());
+    }
+
+}
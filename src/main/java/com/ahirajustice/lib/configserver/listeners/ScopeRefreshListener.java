@@ -0,0 +1,40 @@
+package com.ahirajustice.lib.configserver.listeners;
+
+import com.ahirajustice.lib.configserver.ConfigServer;
+import com.ahirajustice.lib.configserver.conditions.ConfigScopesEnabledCondition;
+import com.ahirajustice.lib.configserver.constants.KafkaConstants;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Listens on the refresh topics of the additional config scopes. Any broadcast on a scope topic makes
+ * this pod refetch that scope.
+ */
+@Component
+@Slf4j
+@Conditional(ConfigScopesEnabledCondition.class)
+public class ScopeRefreshListener {
+
+    @KafkaListener(
+            topics = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getScopeTopics()}",
+            groupId = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getGroupId()}"
+    )
+    public void listenForScopeRefresh(ConsumerRecord<String, String> record) {
+        handle(record, record.topic());
+    }
+
+    static void handle(ConsumerRecord<String, String> record, String scopeTopic) {
+        Header header = record.headers().lastHeader(KafkaConstants.CORRELATION_ID_HEADER);
+        String correlationId = header != null ? new String(header.value(), StandardCharsets.UTF_8) : null;
+
+        log.info("Config scope refresh event {} received for {}", correlationId, scopeTopic);
+        ConfigServer.requestScopeRefresh(scopeTopic, correlationId);
+    }
+
+}
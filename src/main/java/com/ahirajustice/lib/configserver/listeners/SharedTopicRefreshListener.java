@@ -0,0 +1,39 @@
+package com.ahirajustice.lib.configserver.listeners;
+
+import com.ahirajustice.lib.configserver.ConfigServer;
+import com.ahirajustice.lib.configserver.conditions.SharedTopicEnabledCondition;
+import org.apache.commons.lang3.ArrayUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.annotation.TopicPartition;
+import org.springframework.stereotype.Component;
+
+/**
+ * Listens on the partitions of the shared refresh topic that this service's keys hash to, without a
+ * consumer group, and handles the records keyed by this service or one of its scopes. Records of other
+ * services sharing those partitions are ignored.
+ */
+@Component
+@Conditional(SharedTopicEnabledCondition.class)
+public class SharedTopicRefreshListener {
+
+    @KafkaListener(
+            topicPartitions = @TopicPartition(
+                    topic = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getTopic()}",
+                    partitions = "#{T(com.ahirajustice.lib.configserver.ConfigServer).getSharedTopicPartitions()}"
+            ),
+            containerFactory = "sharedKafkaListenerContainerFactory"
+    )
+    public void listenForSharedRefresh(ConsumerRecord<String, String> record) {
+        String key = record.key();
+
+        if (ConfigServer.getServiceKey().equals(key)) {
+            ConfigRefreshListener.handle(record);
+        }
+        else if (ArrayUtils.contains(ConfigServer.getScopeTopics(), key)) {
+            ScopeRefreshListener.handle(record, key);
+        }
+    }
+
+}
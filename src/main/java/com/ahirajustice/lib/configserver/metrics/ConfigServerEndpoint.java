@@ -0,0 +1,62 @@
+package com.ahirajustice.lib.configserver.metrics;
+
+import com.ahirajustice.lib.configserver.ConfigServer;
+import com.ahirajustice.lib.configserver.enums.LifecycleStage;
+import com.ahirajustice.lib.configserver.refresh.AntiEntropyPoller;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@ConditionalOnClass(name = "org.springframework.boot.actuate.endpoint.annotation.Endpoint")
+@Endpoint(id = "configserver")
+public class ConfigServerEndpoint {
+
+    @ReadOperation
+    public Map<String, Object> configServer() {
+        Map<String, Object> details = new LinkedHashMap<>();
+        details.put("enabled", ConfigServer.isEnabled());
+
+        if (!ConfigServer.isEnabled()) {
+            return details;
+        }
+
+        details.put("version", ConfigServer.getConfigVersion());
+        details.put("lastRefreshTime", ConfigServer.getLastRefreshTime());
+        details.put("keyCount", ConfigServer.getKeyCount());
+        details.put("refreshMode", ConfigServer.getRefreshMode());
+        details.put("backend", ConfigServer.getConfigBackend());
+
+        AntiEntropyPoller poller = ConfigServer.getAntiEntropyPoller();
+        if (poller != null) {
+            Map<String, Object> antiEntropy = new LinkedHashMap<>();
+            antiEntropy.put("intervalMs", poller.getIntervalMs());
+            antiEntropy.put("inSync", poller.getInSyncPolls());
+            antiEntropy.put("drift", poller.getDriftPolls());
+            antiEntropy.put("failed", poller.getFailedPolls());
+            details.put("antiEntropy", antiEntropy);
+        }
+
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (LifecycleStage stage : LifecycleStage.values()) {
+            StageStats stats = ConfigServerMetrics.getStats(stage);
+
+            Map<String, Object> stageDetails = new LinkedHashMap<>();
+            stageDetails.put("count", stats.getCount());
+            stageDetails.put("meanMs", stats.getMeanTime(TimeUnit.MILLISECONDS));
+            stageDetails.put("maxMs", stats.getMaxTime(TimeUnit.MILLISECONDS));
+
+            stages.put(stage.name().toLowerCase(Locale.ROOT), stageDetails);
+        }
+        details.put("stages", stages);
+
+        return details;
+    }
+
+}
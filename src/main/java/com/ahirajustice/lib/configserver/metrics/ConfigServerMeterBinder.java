@@ -0,0 +1,104 @@
+package com.ahirajustice.lib.configserver.metrics;
+
+import com.ahirajustice.lib.configserver.ConfigServer;
+import com.ahirajustice.lib.configserver.conditions.ConfigServerEnabledCondition;
+import com.ahirajustice.lib.configserver.enums.LifecycleStage;
+import com.ahirajustice.lib.configserver.refresh.AntiEntropyPoller;
+import com.ahirajustice.lib.configserver.refresh.RefreshScheduler;
+import com.ahirajustice.lib.configserver.refresh.RolloutCoordinator;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Conditional;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+@Component
+@Conditional(ConfigServerEnabledCondition.class)
+public class ConfigServerMeterBinder implements MeterBinder {
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (LifecycleStage stage : LifecycleStage.values()) {
+            StageStats stats = ConfigServerMetrics.getStats(stage);
+            String tag = stage.name().toLowerCase(Locale.ROOT);
+
+            FunctionTimer.builder("config.server.stage", stats, StageStats::getCount, s -> s.getTotalTime(TimeUnit.NANOSECONDS), TimeUnit.NANOSECONDS)
+                    .tag("stage", tag)
+                    .description("Time spent in each stage of the config lifecycle")
+                    .register(registry);
+
+            TimeGauge.builder("config.server.stage.max", stats, TimeUnit.NANOSECONDS, s -> s.getMaxTime(TimeUnit.NANOSECONDS))
+                    .tag("stage", tag)
+                    .register(registry);
+        }
+
+        counter(registry, "config.server.fetch.bytes", "Bytes fetched from config server", x -> ConfigServerMetrics.getFetchBytes());
+        counter(registry, "config.server.fetch.not.modified", "Fetches answered with 304 Not Modified", x -> ConfigServerMetrics.getFetchNotModified());
+        counter(registry, "config.server.digest.bytes", "Bytes of config digests fetched from config server", x -> ConfigServerMetrics.getDigestBytes());
+
+        broadcastCounter(registry, "received", x -> ConfigServerMetrics.getReceivedBroadcasts());
+        broadcastCounter(registry, "skipped", x -> ConfigServerMetrics.getSkippedBroadcasts());
+
+        RefreshScheduler scheduler = ConfigServer.getRefreshScheduler();
+        refreshEventCounter(registry, "received", x -> scheduler.getReceivedEvents());
+        refreshEventCounter(registry, "coalesced", x -> scheduler.getCoalescedEvents());
+        refreshEventCounter(registry, "executed", x -> scheduler.getExecutedRefreshes());
+        refreshEventCounter(registry, "failed", x -> scheduler.getFailedRefreshes());
+
+        AntiEntropyPoller poller = ConfigServer.getAntiEntropyPoller();
+        if (poller != null) {
+            antiEntropyCounter(registry, "in_sync", x -> poller.getInSyncPolls());
+            antiEntropyCounter(registry, "drift", x -> poller.getDriftPolls());
+            antiEntropyCounter(registry, "failed", x -> poller.getFailedPolls());
+        }
+
+        RolloutCoordinator rolloutCoordinator = ConfigServer.getRolloutCoordinator();
+        if (rolloutCoordinator != null && rolloutCoordinator.isCoordinated()) {
+            counter(registry, "config.server.rollout.expired", "Refreshes started without a rollout turn after the lease expired", x -> rolloutCoordinator.getExpiredTurns());
+        }
+
+        Gauge.builder("config.server.keys", ConfigServer::getKeyCount)
+                .description("Number of applied config keys")
+                .register(registry);
+
+        TimeGauge.builder("config.server.last.refresh", ConfigServer.class, TimeUnit.MILLISECONDS,
+                        x -> ConfigServer.getLastRefreshTime() != null ? ConfigServer.getLastRefreshTime().toEpochMilli() : 0)
+                .description("Time the config was last applied, since the epoch")
+                .register(registry);
+    }
+
+    private void counter(MeterRegistry registry, String name, String description, ToDoubleFunction<Object> count) {
+        FunctionCounter.builder(name, this, count)
+                .description(description)
+                .register(registry);
+    }
+
+    private void broadcastCounter(MeterRegistry registry, String outcome, ToDoubleFunction<Object> count) {
+        FunctionCounter.builder("config.server.broadcasts", this, count)
+                .tag("outcome", outcome)
+                .description("Refresh broadcasts received from Kafka")
+                .register(registry);
+    }
+
+    private void antiEntropyCounter(MeterRegistry registry, String outcome, ToDoubleFunction<Object> count) {
+        FunctionCounter.builder("config.server.anti.entropy.polls", this, count)
+                .tag("outcome", outcome)
+                .description("Anti-entropy checks of the applied config against config server")
+                .register(registry);
+    }
+
+    private void refreshEventCounter(MeterRegistry registry, String outcome, ToDoubleFunction<Object> count) {
+        FunctionCounter.builder("config.server.refresh.events", this, count)
+                .tag("outcome", outcome)
+                .description("Refresh events handled by the refresh scheduler")
+                .register(registry);
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.ahirajustice.lib.configserver.metrics;
+
+import com.ahirajustice.lib.configserver.enums.LifecycleStage;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Collects timings and counts for the config lifecycle. Config is fetched before the application context
+ * and its MeterRegistry exist, so measurements are kept here and exposed to Micrometer through
+ * {@link ConfigServerMeterBinder} once the context starts. Measurements survive context restarts.
+ */
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ConfigServerMetrics {
+
+    private static final Map<LifecycleStage, StageStats> stages = new EnumMap<>(LifecycleStage.class);
+    private static final LongAdder fetchBytes = new LongAdder();
+    private static final LongAdder fetchNotModified = new LongAdder();
+    private static final LongAdder digestBytes = new LongAdder();
+    private static final LongAdder receivedBroadcasts = new LongAdder();
+    private static final LongAdder skippedBroadcasts = new LongAdder();
+
+    static {
+        for (LifecycleStage stage : LifecycleStage.values()) {
+            stages.put(stage, new StageStats());
+        }
+    }
+
+    public static void record(LifecycleStage stage, long nanos) {
+        record(stage, nanos, 1);
+    }
+
+    /**
+     * Records a measurement covering several events, e.g. the decryption of a batch of entries.
+     */
+    public static void record(LifecycleStage stage, long nanos, long events) {
+        if (events > 0) {
+            stages.get(stage).record(nanos, events);
+        }
+    }
+
+    public static StageStats getStats(LifecycleStage stage) {
+        return stages.get(stage);
+    }
+
+    public static void recordFetch(long bytes, boolean modified) {
+        fetchBytes.add(bytes);
+
+        if (!modified) {
+            fetchNotModified.increment();
+        }
+    }
+
+    public static void recordDigestFetch(long bytes) {
+        digestBytes.add(bytes);
+    }
+
+    public static void recordBroadcastReceived(boolean applied) {
+        receivedBroadcasts.increment();
+
+        if (!applied) {
+            skippedBroadcasts.increment();
+        }
+    }
+
+    public static long getFetchBytes() {
+        return fetchBytes.sum();
+    }
+
+    public static long getFetchNotModified() {
+        return fetchNotModified.sum();
+    }
+
+    public static long getDigestBytes() {
+        return digestBytes.sum();
+    }
+
+    public static long getReceivedBroadcasts() {
+        return receivedBroadcasts.sum();
+    }
+
+    public static long getSkippedBroadcasts() {
+        return skippedBroadcasts.sum();
+    }
+
+}
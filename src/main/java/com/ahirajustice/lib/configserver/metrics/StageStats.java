@@ -0,0 +1,36 @@
+package com.ahirajustice.lib.configserver.metrics;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+public class StageStats {
+
+    private final LongAdder count = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+    void record(long nanos, long events) {
+        count.add(events);
+        totalNanos.add(nanos);
+        maxNanos.accumulate(events > 1 ? nanos / events : nanos);
+    }
+
+    public long getCount() {
+        return count.sum();
+    }
+
+    public double getTotalTime(TimeUnit unit) {
+        return (double) totalNanos.sum() / unit.toNanos(1);
+    }
+
+    public double getMaxTime(TimeUnit unit) {
+        return (double) maxNanos.get() / unit.toNanos(1);
+    }
+
+    public double getMeanTime(TimeUnit unit) {
+        long events = count.sum();
+        return events == 0 ? 0 : getTotalTime(unit) / events;
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.ahirajustice.lib.configserver.models;
+
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Base64;
+
+/**
+ * Raw ciphertext of an encrypted config value, as received in the binary wire format. It is either an RSA
+ * encrypted value or an envelope encrypted value, whose wrapped data key is shared by all envelope values of
+ * a payload.
+ */
+@Getter
+@EqualsAndHashCode
+@AllArgsConstructor(access = AccessLevel.PRIVATE)
+public class CipherText {
+
+    private final byte[] wrappedKey;
+    private final byte[] iv;
+    private final byte[] data;
+
+    public static CipherText rsa(byte[] data) {
+        return new CipherText(null, null, data);
+    }
+
+    public static CipherText envelope(byte[] wrappedKey, byte[] iv, byte[] data) {
+        return new CipherText(wrappedKey, iv, data);
+    }
+
+    public boolean isEnvelope() {
+        return wrappedKey != null;
+    }
+
+    /**
+     * Encodes the ciphertext in the Base64 form used by the JSON format.
+     */
+    public String encode() {
+        Base64.Encoder encoder = Base64.getEncoder();
+
+        if (!isEnvelope()) {
+            return encoder.encodeToString(data);
+        }
+
+        return String.format("%s%s:%s:%s", CipherUtils.ENVELOPE_PREFIX, encoder.encodeToString(wrappedKey), encoder.encodeToString(iv), encoder.encodeToString(data));
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.ahirajustice.lib.configserver.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+@Getter
+@AllArgsConstructor
+public class ConfigChange {
+
+    private final String key;
+    private final String oldValue;
+    private final String newValue;
+
+}
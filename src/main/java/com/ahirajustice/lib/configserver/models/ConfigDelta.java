@@ -0,0 +1,18 @@
+package com.ahirajustice.lib.configserver.models;
+
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Getter
+@Setter
+public class ConfigDelta {
+
+    private String version;
+    private List<ConfigEntry> added = new ArrayList<>();
+    private List<ConfigEntry> changed = new ArrayList<>();
+    private List<String> removed = new ArrayList<>();
+
+}
@@ -0,0 +1,72 @@
+package com.ahirajustice.lib.configserver.models;
+
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Predicate;
+
+@Getter
+public class ConfigDiff {
+
+    private final Map<String, String> added = new LinkedHashMap<>();
+    private final Map<String, String> changed = new LinkedHashMap<>();
+    private final Set<String> removed = new HashSet<>();
+    private boolean restartRequired;
+
+    /**
+     * Compares the currently applied config against the incoming config. A restart is required when a
+     * restart-required key is touched, or when a key is removed, since removed keys cannot be unset
+     * from property sources that were loaded at startup.
+     */
+    public static ConfigDiff between(Map<String, String> current, Map<String, String> incoming, Predicate<String> restartRequired) {
+        ConfigDiff diff = new ConfigDiff();
+
+        for (Map.Entry<String, String> entry : incoming.entrySet()) {
+            String key = entry.getKey();
+
+            if (!current.containsKey(key)) {
+                diff.added.put(key, entry.getValue());
+            }
+            else if (!Objects.equals(current.get(key), entry.getValue())) {
+                diff.changed.put(key, entry.getValue());
+            }
+            else {
+                continue;
+            }
+
+            if (restartRequired.test(key)) {
+                diff.restartRequired = true;
+            }
+        }
+
+        for (String key : current.keySet()) {
+            if (!incoming.containsKey(key)) {
+                diff.removed.add(key);
+                diff.restartRequired = true;
+            }
+        }
+
+        return diff;
+    }
+
+    public Map<String, String> getUpdated() {
+        Map<String, String> updated = new LinkedHashMap<>(added);
+        updated.putAll(changed);
+
+        return Collections.unmodifiableMap(updated);
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    public int size() {
+        return added.size() + changed.size() + removed.size();
+    }
+
+}
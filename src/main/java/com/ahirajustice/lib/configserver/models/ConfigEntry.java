@@ -1,8 +1,11 @@
 package com.ahirajustice.lib.configserver.models;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import lombok.Getter;
 import lombok.Setter;
 
+import java.util.Objects;
+
 @Getter
 @Setter
 public class ConfigEntry {
@@ -10,5 +13,43 @@ public class ConfigEntry {
     private String configKey;
     private String configValue;
     private Boolean encrypted;
+    private Boolean restartRequired;
+
+    /**
+     * Raw ciphertext of an encrypted value received in the binary wire format, which is decrypted without
+     * a Base64 step. No config value is set alongside it.
+     */
+    @JsonIgnore
+    private CipherText cipherText;
+
+    /**
+     * Returns the config value or, for an encrypted value received in the binary wire format, its
+     * ciphertext in Base64 form, as written to snapshots and digested. That form is encoded on every call.
+     */
+    public String getConfigValue() {
+        if (configValue == null && cipherText != null) {
+            return cipherText.encode();
+        }
+
+        return configValue;
+    }
+
+    /**
+     * Whether the other entry has the same key, value and flags. Two raw ciphertexts are compared as
+     * bytes, the Base64 form is only encoded to compare one with a config value.
+     */
+    public boolean hasSameContent(ConfigEntry other) {
+        if (!Objects.equals(configKey, other.configKey)
+                || Boolean.TRUE.equals(encrypted) != Boolean.TRUE.equals(other.encrypted)
+                || Boolean.TRUE.equals(restartRequired) != Boolean.TRUE.equals(other.restartRequired)) {
+            return false;
+        }
+
+        if (configValue == null && other.configValue == null) {
+            return Objects.equals(cipherText, other.cipherText);
+        }
+
+        return Objects.equals(getConfigValue(), other.getConfigValue());
+    }
 
 }
@@ -0,0 +1,20 @@
+package com.ahirajustice.lib.configserver.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ConfigFetchResponse {
+
+    private final List<ConfigEntry> configEntries;
+    private final ConfigDelta delta;
+    private final long bytes;
+
+    public boolean isDelta() {
+        return delta != null;
+    }
+
+}
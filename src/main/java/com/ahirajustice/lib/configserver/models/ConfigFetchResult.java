@@ -0,0 +1,16 @@
+package com.ahirajustice.lib.configserver.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ConfigFetchResult {
+
+    private final boolean modified;
+    private final String version;
+    private final List<ConfigEntry> configEntries;
+
+}
@@ -0,0 +1,15 @@
+package com.ahirajustice.lib.configserver.models;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+@Getter
+@AllArgsConstructor
+public class ConfigSnapshot {
+
+    private final String version;
+    private final List<ConfigEntry> configEntries;
+
+}
@@ -0,0 +1,22 @@
+package com.ahirajustice.lib.configserver.models;
+
+import com.ahirajustice.lib.configserver.enums.WireFormat;
+import lombok.Builder;
+import lombok.Getter;
+
+@Getter
+@Builder
+public class HttpClientSettings {
+
+    private final int connectTimeoutMs;
+    private final int readTimeoutMs;
+    private final int maxConnections;
+    private final int maxRetries;
+    private final long retryBackoffMs;
+    private final long retryMaxBackoffMs;
+    private final int circuitBreakerThreshold;
+    private final long circuitBreakerCooldownMs;
+    @Builder.Default
+    private final WireFormat wireFormat = WireFormat.BINARY;
+
+}
@@ -0,0 +1,19 @@
+package com.ahirajustice.lib.configserver.models;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RefreshMessage {
+
+    private String baseVersion;
+    private String version;
+    private List<ConfigEntry> configEntries;
+    private ConfigDelta delta;
+
+}
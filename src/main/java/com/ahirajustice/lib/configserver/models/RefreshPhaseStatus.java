@@ -0,0 +1,17 @@
+package com.ahirajustice.lib.configserver.models;
+
+import com.ahirajustice.lib.configserver.enums.RefreshPhase;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.Instant;
+
+@Getter
+@AllArgsConstructor
+public class RefreshPhaseStatus {
+
+    private final RefreshPhase phase;
+    private final Instant completedAt;
+    private final long durationMs;
+
+}
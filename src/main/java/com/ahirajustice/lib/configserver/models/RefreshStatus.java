@@ -0,0 +1,55 @@
+package com.ahirajustice.lib.configserver.models;
+
+import com.ahirajustice.lib.configserver.enums.RefreshPhase;
+import com.ahirajustice.lib.configserver.enums.RefreshState;
+import lombok.Getter;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+@Getter
+public class RefreshStatus {
+
+    private final String id;
+    private final Instant createdAt = Instant.now();
+    private final List<RefreshPhaseStatus> phases = new CopyOnWriteArrayList<>();
+    private volatile RefreshState state = RefreshState.PENDING;
+    private volatile String message;
+    private volatile Instant completedAt;
+    private volatile long lastPhaseNanos = System.nanoTime();
+
+    public RefreshStatus(String id) {
+        this.id = id;
+    }
+
+    public void start() {
+        state = RefreshState.RUNNING;
+        lastPhaseNanos = System.nanoTime();
+    }
+
+    public void recordPhase(RefreshPhase phase) {
+        long now = System.nanoTime();
+        phases.add(new RefreshPhaseStatus(phase, Instant.now(), (now - lastPhaseNanos) / 1_000_000));
+        lastPhaseNanos = now;
+    }
+
+    public void succeed(String message) {
+        complete(RefreshState.SUCCEEDED, message);
+    }
+
+    public void fail(String message) {
+        complete(RefreshState.FAILED, message);
+    }
+
+    private synchronized void complete(RefreshState state, String message) {
+        if (completedAt != null) {
+            return;
+        }
+
+        this.message = message;
+        this.completedAt = Instant.now();
+        this.state = state;
+    }
+
+}
@@ -0,0 +1,108 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Periodically checks that the applied config matches config-server, as a fallback for refresh broadcasts
+ * a pod missed. The check returns true when it found drift. The poll interval starts at the minimum,
+ * doubles after every check that found the pod in sync or failed, up to the maximum, and drops back to the
+ * minimum only after drift, so an unavailable config-server is not polled at the fastest rate by the whole
+ * fleet. Each interval is jittered by up to 10% so pods do not poll in lockstep.
+ */
+@Slf4j
+public class AntiEntropyPoller {
+
+    private final ScheduledExecutorService executor;
+    private final long minIntervalMs;
+    private final long maxIntervalMs;
+    private final BooleanSupplier check;
+
+    private final AtomicLong inSyncPolls = new AtomicLong();
+    private final AtomicLong driftPolls = new AtomicLong();
+    private final AtomicLong failedPolls = new AtomicLong();
+
+    private volatile long intervalMs;
+    private boolean started;
+
+    public AntiEntropyPoller(long minIntervalMs, long maxIntervalMs, BooleanSupplier check) {
+        this(minIntervalMs, maxIntervalMs, check, Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "config-server-anti-entropy");
+            thread.setDaemon(true);
+            return thread;
+        }));
+    }
+
+    /**
+     * Polls on the given executor, which must run one check at a time.
+     */
+    AntiEntropyPoller(long minIntervalMs, long maxIntervalMs, BooleanSupplier check, ScheduledExecutorService executor) {
+        this.minIntervalMs = minIntervalMs;
+        this.maxIntervalMs = Math.max(minIntervalMs, maxIntervalMs);
+        this.check = check;
+        this.intervalMs = minIntervalMs;
+        this.executor = executor;
+    }
+
+    public synchronized void start() {
+        if (started) {
+            return;
+        }
+
+        started = true;
+        schedule();
+    }
+
+    private void schedule() {
+        long jitter = ThreadLocalRandom.current().nextLong(intervalMs / 10 + 1);
+        executor.schedule(this::run, intervalMs + jitter, TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        try {
+            if (check.getAsBoolean()) {
+                driftPolls.incrementAndGet();
+                intervalMs = minIntervalMs;
+            }
+            else {
+                inSyncPolls.incrementAndGet();
+                backOff();
+            }
+        }
+        catch (Exception ex) {
+            failedPolls.incrementAndGet();
+            backOff();
+            log.warn("Config anti-entropy check failed, next check in about {}ms: {}", intervalMs, ex.getMessage());
+        }
+        finally {
+            schedule();
+        }
+    }
+
+    private void backOff() {
+        intervalMs = Math.min(intervalMs * 2, maxIntervalMs);
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    public long getInSyncPolls() {
+        return inSyncPolls.get();
+    }
+
+    public long getDriftPolls() {
+        return driftPolls.get();
+    }
+
+    public long getFailedPolls() {
+        return failedPolls.get();
+    }
+
+}
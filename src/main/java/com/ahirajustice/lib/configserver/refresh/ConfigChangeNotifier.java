@@ -0,0 +1,116 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import com.ahirajustice.lib.configserver.events.ConfigChangedEvent;
+import com.ahirajustice.lib.configserver.listeners.ConfigChangeListener;
+import com.ahirajustice.lib.configserver.models.ConfigChange;
+import com.ahirajustice.lib.configserver.models.ConfigDiff;
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import com.ahirajustice.lib.configserver.utils.KeyPatternUtils;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Notifies registered listeners, and the application context through a {@link ConfigChangedEvent}, of
+ * keys changed by a hot refresh. Notifications are dispatched in order on a dedicated thread, off the
+ * Kafka consumer and refresh threads, and each listener only receives the changes matching its pattern.
+ */
+@Slf4j
+public class ConfigChangeNotifier {
+
+    private final List<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "config-server-change-dispatch");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public Runnable subscribe(String keyPattern, ConfigChangeListener listener) {
+        Subscription subscription = new Subscription(keyPattern, listener);
+        subscriptions.add(subscription);
+
+        return () -> subscriptions.remove(subscription);
+    }
+
+    /**
+     * Encrypted values that were not decrypted by the refresh are resolved on the dispatch thread.
+     */
+    public void notify(Map<String, String> previousConfig, LazySecrets previousSecrets, ConfigDiff diff, LazySecrets secrets, ApplicationEventPublisher publisher) {
+        Map<String, String> updated = diff.getUpdated();
+
+        if (updated.isEmpty()) {
+            return;
+        }
+
+        executor.execute(() -> {
+            List<ConfigChange> changes = new ArrayList<>();
+
+            try {
+                for (Map.Entry<String, String> entry : updated.entrySet()) {
+                    String key = entry.getKey();
+                    changes.add(new ConfigChange(key, previousSecrets.resolve(key, previousConfig.get(key)), secrets.resolve(key, entry.getValue())));
+                }
+            }
+            catch (Exception ex) {
+                log.error("Unable to resolve changed config values: {}", ex.getMessage(), ex);
+                return;
+            }
+
+            List<ConfigChange> allChanges = Collections.unmodifiableList(changes);
+
+            for (Subscription subscription : subscriptions) {
+                dispatch(subscription, allChanges);
+            }
+
+            if (publisher != null) {
+                try {
+                    publisher.publishEvent(new ConfigChangedEvent(publisher, allChanges));
+                }
+                catch (Exception ex) {
+                    log.error("Config change event listener failed: {}", ex.getMessage(), ex);
+                }
+            }
+        });
+    }
+
+    private void dispatch(Subscription subscription, List<ConfigChange> changes) {
+        List<ConfigChange> matching = new ArrayList<>();
+
+        for (ConfigChange change : changes) {
+            if (KeyPatternUtils.matches(subscription.keyPattern, change.getKey())) {
+                matching.add(change);
+            }
+        }
+
+        if (matching.isEmpty()) {
+            return;
+        }
+
+        try {
+            subscription.listener.onChange(Collections.unmodifiableList(matching));
+        }
+        catch (Exception ex) {
+            log.error("Config change listener for {} failed: {}", subscription.keyPattern, ex.getMessage(), ex);
+        }
+    }
+
+    private static class Subscription {
+
+        private final String keyPattern;
+        private final ConfigChangeListener listener;
+
+        private Subscription(String keyPattern, ConfigChangeListener listener) {
+            this.keyPattern = keyPattern;
+            this.listener = listener;
+        }
+
+    }
+
+}
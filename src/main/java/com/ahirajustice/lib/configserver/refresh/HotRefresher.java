@@ -0,0 +1,148 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import com.ahirajustice.lib.configserver.models.ConfigDiff;
+import com.ahirajustice.lib.configserver.secrets.DecryptingPropertySource;
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import com.ahirajustice.lib.configserver.utils.PropertySourceUtils;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.properties.ConfigurationPropertiesBean;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.context.properties.source.ConfigurationPropertyName;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.EnumerablePropertySource;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+@Slf4j
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class HotRefresher {
+
+    public static final String PROPERTY_SOURCE_NAME = "configServerHotRefresh";
+
+    /**
+     * Pushes the updated keys of the diff into a dedicated, highest precedence property source of the
+     * running environment and rebinds the @ConfigurationProperties beans those keys bind to. Returns false,
+     * without changing anything, when a key binds to a bean that can only be bound through its constructor,
+     * or to no @ConfigurationProperties bean at all, such as a value injected with @Value. The application
+     * has to be restarted instead, as beans would otherwise keep the old value.
+     */
+    public static boolean apply(ConfigurableApplicationContext context, ConfigDiff diff, LazySecrets secrets) {
+        MutablePropertySources propertySources = context.getEnvironment().getPropertySources();
+        Map<String, Set<ConfigurationPropertyName>> boundNames = getBoundNames(propertySources, diff.getUpdated().keySet());
+        Map<String, ConfigurationPropertiesBean> beans = new LinkedHashMap<>();
+        Set<String> unboundKeys = new LinkedHashSet<>(boundNames.keySet());
+
+        for (Map.Entry<String, ConfigurationPropertiesBean> entry : ConfigurationPropertiesBean.getAll(context).entrySet()) {
+            ConfigurationPropertyName prefix = ConfigurationPropertyName.adapt(entry.getValue().getAnnotation().prefix(), '.');
+            List<String> keys = getKeysBoundTo(prefix, boundNames);
+
+            if (keys.isEmpty()) {
+                continue;
+            }
+
+            if (entry.getValue().getBindMethod() != ConfigurationPropertiesBean.BindMethod.JAVA_BEAN) {
+                log.info("Config keys {} bind to immutable @ConfigurationProperties bean {}", keys, entry.getKey());
+                return false;
+            }
+
+            beans.put(entry.getKey(), entry.getValue());
+            unboundKeys.removeAll(keys);
+        }
+
+        if (!unboundKeys.isEmpty()) {
+            log.info("Config keys {} do not bind to any @ConfigurationProperties bean", unboundKeys);
+            return false;
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+
+        PropertySource<?> existing = propertySources.get(PROPERTY_SOURCE_NAME);
+        if (existing instanceof MapPropertySource) {
+            properties.putAll(((MapPropertySource) existing).getSource());
+        }
+
+        properties.putAll(PropertySourceUtils.toProperties(diff.getUpdated(), secrets));
+        PropertySourceUtils.addOrReplaceFirst(propertySources, new DecryptingPropertySource(PROPERTY_SOURCE_NAME, properties));
+
+        rebind(context, beans.values());
+
+        return true;
+    }
+
+    private static void rebind(ConfigurableApplicationContext context, Collection<ConfigurationPropertiesBean> beans) {
+        Binder binder = Binder.get(context.getEnvironment());
+
+        for (ConfigurationPropertiesBean bean : beans) {
+            binder.bind(bean.getAnnotation().prefix(), Bindable.ofInstance(bean.getInstance()));
+        }
+    }
+
+    /**
+     * Maps each config key to the property names it binds to: the key itself, read as a dotted property
+     * name, and every property whose value references it in a ${KEY} or ${env.KEY} placeholder.
+     */
+    private static Map<String, Set<ConfigurationPropertyName>> getBoundNames(MutablePropertySources propertySources, Set<String> keys) {
+        Map<String, Set<ConfigurationPropertyName>> boundNames = new LinkedHashMap<>();
+        Map<String, Pattern> placeholders = new HashMap<>();
+
+        for (String key : keys) {
+            Set<ConfigurationPropertyName> names = new HashSet<>();
+            names.add(ConfigurationPropertyName.adapt(key, '.'));
+            boundNames.put(key, names);
+
+            placeholders.put(key, Pattern.compile("\\$\\{(env\\.)?" + Pattern.quote(key) + "[:}]"));
+        }
+
+        for (PropertySource<?> propertySource : propertySources) {
+            // Config server sources hold the config values themselves, and reading them decrypts secrets
+            if (!(propertySource instanceof EnumerablePropertySource) || propertySource instanceof DecryptingPropertySource) {
+                continue;
+            }
+
+            for (String name : ((EnumerablePropertySource<?>) propertySource).getPropertyNames()) {
+                Object value = propertySource.getProperty(name);
+                String text = value != null ? value.toString() : null;
+
+                if (text == null || !text.contains("${")) {
+                    continue;
+                }
+
+                placeholders.forEach((key, placeholder) -> {
+                    if (placeholder.matcher(text).find()) {
+                        boundNames.get(key).add(ConfigurationPropertyName.adapt(name, '.'));
+                    }
+                });
+            }
+        }
+
+        return boundNames;
+    }
+
+    private static List<String> getKeysBoundTo(ConfigurationPropertyName prefix, Map<String, Set<ConfigurationPropertyName>> boundNames) {
+        List<String> keys = new ArrayList<>();
+
+        boundNames.forEach((key, names) -> {
+            if (names.stream().anyMatch(name -> prefix.equals(name) || prefix.isAncestorOf(name))) {
+                keys.add(key);
+            }
+        });
+
+        return keys;
+    }
+
+}
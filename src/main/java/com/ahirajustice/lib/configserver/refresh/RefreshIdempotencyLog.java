@@ -0,0 +1,49 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Remembers the correlation IDs of recently received refresh broadcasts and the recently applied config
+ * versions, so a broadcast redelivered after a consumer rebalance, or one for a version this pod already
+ * applied, is not applied again. Both logs are bounded and evict the oldest entries first.
+ */
+public class RefreshIdempotencyLog {
+
+    private final Set<String> correlationIds;
+    private final Set<String> appliedVersions;
+
+    public RefreshIdempotencyLog(int capacity) {
+        this.correlationIds = boundedSet(capacity);
+        this.appliedVersions = boundedSet(capacity);
+    }
+
+    /**
+     * Returns false when the correlation ID was already received.
+     */
+    public synchronized boolean markReceived(String correlationId) {
+        return correlationId == null || correlationIds.add(correlationId);
+    }
+
+    public synchronized void markApplied(String version) {
+        if (version != null) {
+            appliedVersions.add(version);
+        }
+    }
+
+    public synchronized boolean isApplied(String version) {
+        return version != null && appliedVersions.contains(version);
+    }
+
+    private static Set<String> boundedSet(int capacity) {
+        return Collections.newSetFromMap(new LinkedHashMap<String, Boolean>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > capacity;
+            }
+        });
+    }
+
+}
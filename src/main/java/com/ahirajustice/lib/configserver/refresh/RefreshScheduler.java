@@ -0,0 +1,90 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collapses bursts of refresh events into a single refresh. The first event of a burst schedules a
+ * refresh after the coalescing window, and every event received until that refresh starts is folded
+ * into it. Refreshes run on a single thread, so two refreshes never run at once.
+ */
+@Slf4j
+public class RefreshScheduler {
+
+    private final ScheduledExecutorService executor;
+    private final long windowMs;
+    private final Runnable refresh;
+
+    private final AtomicLong receivedEvents = new AtomicLong();
+    private final AtomicLong coalescedEvents = new AtomicLong();
+    private final AtomicLong executedRefreshes = new AtomicLong();
+    private final AtomicLong failedRefreshes = new AtomicLong();
+
+    private boolean scheduled;
+    private int pendingEvents;
+
+    public RefreshScheduler(long windowMs, Runnable refresh) {
+        this.windowMs = windowMs;
+        this.refresh = refresh;
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "config-server-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void submit() {
+        receivedEvents.incrementAndGet();
+        pendingEvents++;
+
+        if (scheduled) {
+            coalescedEvents.incrementAndGet();
+            return;
+        }
+
+        scheduled = true;
+        executor.schedule(this::run, windowMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void run() {
+        int events;
+
+        synchronized (this) {
+            events = pendingEvents;
+            pendingEvents = 0;
+            scheduled = false;
+        }
+
+        log.info("Refreshing config for {} coalesced refresh events", events);
+
+        try {
+            refresh.run();
+            executedRefreshes.incrementAndGet();
+        }
+        catch (Exception ex) {
+            failedRefreshes.incrementAndGet();
+            log.error("Config refresh failed: {}", ex.getMessage(), ex);
+        }
+    }
+
+    public long getReceivedEvents() {
+        return receivedEvents.get();
+    }
+
+    public long getCoalescedEvents() {
+        return coalescedEvents.get();
+    }
+
+    public long getExecutedRefreshes() {
+        return executedRefreshes.get();
+    }
+
+    public long getFailedRefreshes() {
+        return failedRefreshes.get();
+    }
+
+}
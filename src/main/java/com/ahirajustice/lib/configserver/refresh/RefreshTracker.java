@@ -0,0 +1,107 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import com.ahirajustice.lib.configserver.models.RefreshStatus;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs refreshes requested through the /refresh endpoint on a single worker thread with a bounded queue,
+ * and keeps the status of the most recent refreshes for polling. A refresh that does not complete within
+ * the timeout is reported as failed and its worker is interrupted, or it is dropped from the queue when it
+ * has not started yet. The tracker outlives application context restarts, so the status of a refresh that
+ * restarted the application can still be polled afterwards.
+ */
+@Slf4j
+public class RefreshTracker {
+
+    private static final int MAX_TRACKED_REFRESHES = 100;
+
+    private final ThreadPoolExecutor executor;
+    private final ScheduledExecutorService timeouts;
+    private final long timeoutMs;
+    private final Map<String, RefreshStatus> statuses = new LinkedHashMap<String, RefreshStatus>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, RefreshStatus> eldest) {
+            return size() > MAX_TRACKED_REFRESHES;
+        }
+    };
+
+    public RefreshTracker(int queueCapacity, long timeoutMs) {
+        this.timeoutMs = timeoutMs;
+        this.executor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<>(queueCapacity), runnable -> {
+            Thread thread = new Thread(runnable, "config-server-refresh-request");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.timeouts = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "config-server-refresh-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queues the refresh and returns its status immediately. Throws RejectedExecutionException when the
+     * queue is full.
+     */
+    public RefreshStatus submit(Consumer<RefreshStatus> refresh) {
+        RefreshStatus status = new RefreshStatus(UUID.randomUUID().toString());
+
+        synchronized (statuses) {
+            statuses.put(status.getId(), status);
+        }
+
+        Future<?> task;
+
+        try {
+            task = executor.submit(() -> run(status, refresh));
+        }
+        catch (RejectedExecutionException ex) {
+            synchronized (statuses) {
+                statuses.remove(status.getId());
+            }
+            throw ex;
+        }
+
+        timeouts.schedule(() -> {
+            if (!task.isDone()) {
+                status.fail(String.format("Refresh did not complete within %dms", timeoutMs));
+                task.cancel(true);
+                executor.purge();
+            }
+        }, timeoutMs, TimeUnit.MILLISECONDS);
+
+        return status;
+    }
+
+    private void run(RefreshStatus status, Consumer<RefreshStatus> refresh) {
+        status.start();
+
+        try {
+            refresh.accept(status);
+            status.succeed("Successfully refreshed application config");
+        }
+        catch (Exception ex) {
+            log.error("Config refresh {} failed: {}", status.getId(), ex.getMessage(), ex);
+            status.fail(ex.getMessage());
+        }
+    }
+
+    public RefreshStatus getStatus(String id) {
+        synchronized (statuses) {
+            return statuses.get(id);
+        }
+    }
+
+}
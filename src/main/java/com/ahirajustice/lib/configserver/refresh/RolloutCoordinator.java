@@ -0,0 +1,212 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import com.ahirajustice.lib.configserver.enums.RolloutMode;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Spreads fleet-wide refreshes over time. Before a refresh triggered by a broadcast, each pod waits for a
+ * random (JITTER) or pod name derived (STAGGER) delay within the rollout window. When a concurrency budget
+ * is set, pods then queue for a turn by announcing on the rollout topic that they are waiting, and announce
+ * the start and completion of their refresh. Queued pods are ranked by pod name, so every pod agrees on who
+ * goes next. Announcements expire after the lease so a pod that dies mid-refresh does not hold up the fleet.
+ */
+@Slf4j
+public class RolloutCoordinator {
+
+    public static final String WAITING = "WAITING";
+    public static final String STARTED = "STARTED";
+    public static final String COMPLETED = "COMPLETED";
+
+    private static final long POLL_INTERVAL_MS = 500;
+
+    @Getter
+    private final RolloutMode mode;
+    private final long windowMs;
+    @Getter
+    private final int maxConcurrent;
+    private final long leaseMs;
+    private final String podName;
+    private final String topic;
+    private final Timer timer;
+
+    private final Map<String, Long> waitingPeers = new ConcurrentHashMap<>();
+    private final Map<String, Long> activePeers = new ConcurrentHashMap<>();
+    private final AtomicBoolean announced = new AtomicBoolean();
+    private final LongAdder expiredTurns = new LongAdder();
+    private volatile KafkaTemplate<String, String> kafkaTemplate;
+
+    public RolloutCoordinator(RolloutMode mode, long windowMs, int maxConcurrent, long leaseMs, String podName, String topic) {
+        this(mode, windowMs, maxConcurrent, leaseMs, podName, topic, Timer.SYSTEM);
+    }
+
+    RolloutCoordinator(RolloutMode mode, long windowMs, int maxConcurrent, long leaseMs, String podName, String topic, Timer timer) {
+        this.mode = mode;
+        this.windowMs = windowMs;
+        this.maxConcurrent = maxConcurrent;
+        this.leaseMs = leaseMs;
+        this.podName = podName;
+        this.topic = topic;
+        this.timer = timer;
+    }
+
+    public boolean isCoordinated() {
+        return maxConcurrent > 0;
+    }
+
+    public void setKafkaTemplate(KafkaTemplate<String, String> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    /**
+     * Waits for the rollout delay and then, when coordinated, for this pod's turn. A pod that is not given a
+     * turn within the lease refreshes anyway, rather than never applying the config.
+     */
+    public void awaitTurn() {
+        try {
+            long delay = getDelay();
+
+            if (delay > 0) {
+                log.info("Delaying config refresh by {}ms for rollout", delay);
+                timer.sleep(delay);
+            }
+
+            if (!isCoordinated() || kafkaTemplate == null) {
+                return;
+            }
+
+            announced.set(true);
+            publish(WAITING);
+
+            long deadline = timer.currentTimeMillis() + leaseMs;
+
+            // Gives the announcements of peers that queued at about the same time a chance to arrive
+            timer.sleep(POLL_INTERVAL_MS);
+
+            while (!hasTurn()) {
+                if (timer.currentTimeMillis() >= deadline) {
+                    expiredTurns.increment();
+                    log.warn("No rollout turn after {}ms, with {} peers refreshing and {} queued ahead. Refreshing anyway", leaseMs, getActivePeers(), getPeersAhead());
+                    break;
+                }
+
+                timer.sleep(POLL_INTERVAL_MS);
+            }
+
+            publish(STARTED);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * A pod has its turn once the peers refreshing and the peers queued ahead of it leave room in the budget.
+     */
+    private boolean hasTurn() {
+        return getActivePeers() + getPeersAhead() < maxConcurrent;
+    }
+
+    public void complete() {
+        if (announced.compareAndSet(true, false)) {
+            publish(COMPLETED);
+        }
+    }
+
+    public void onPeerEvent(String peer, String event) {
+        if (peer == null || peer.equals(podName)) {
+            return;
+        }
+
+        if (WAITING.equals(event)) {
+            waitingPeers.put(peer, timer.currentTimeMillis());
+        }
+        else if (STARTED.equals(event)) {
+            waitingPeers.remove(peer);
+            activePeers.put(peer, timer.currentTimeMillis());
+        }
+        else if (COMPLETED.equals(event)) {
+            waitingPeers.remove(peer);
+            activePeers.remove(peer);
+        }
+    }
+
+    public int getActivePeers() {
+        long expiry = timer.currentTimeMillis() - leaseMs;
+        activePeers.values().removeIf(startedAt -> startedAt < expiry);
+
+        return activePeers.size();
+    }
+
+    private int getPeersAhead() {
+        long expiry = timer.currentTimeMillis() - leaseMs;
+        waitingPeers.values().removeIf(queuedAt -> queuedAt < expiry);
+
+        return (int) waitingPeers.keySet().stream().filter(peer -> peer.compareTo(podName) < 0).count();
+    }
+
+    public long getExpiredTurns() {
+        return expiredTurns.sum();
+    }
+
+    private long getDelay() {
+        if (windowMs <= 0) {
+            return 0;
+        }
+
+        switch (mode) {
+            case JITTER:
+                return ThreadLocalRandom.current().nextLong(windowMs);
+            case STAGGER:
+                return Math.floorMod(podName.hashCode(), 1000) * windowMs / 1000;
+            default:
+                return 0;
+        }
+    }
+
+    private void publish(String event) {
+        KafkaTemplate<String, String> template = kafkaTemplate;
+
+        if (template == null) {
+            return;
+        }
+
+        try {
+            template.send(topic, podName, event);
+        }
+        catch (Exception ex) {
+            log.warn("Unable to publish rollout event {}: {}", event, ex.getMessage());
+        }
+    }
+
+    /**
+     * The time source and sleep of the coordinator, replaced in tests.
+     */
+    interface Timer {
+
+        Timer SYSTEM = new Timer() {
+            @Override
+            public long currentTimeMillis() {
+                return System.currentTimeMillis();
+            }
+
+            @Override
+            public void sleep(long millis) throws InterruptedException {
+                Thread.sleep(millis);
+            }
+        };
+
+        long currentTimeMillis();
+
+        void sleep(long millis) throws InterruptedException;
+
+    }
+
+}
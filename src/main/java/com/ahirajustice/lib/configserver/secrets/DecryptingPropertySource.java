@@ -0,0 +1,28 @@
+package com.ahirajustice.lib.configserver.secrets;
+
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+
+/**
+ * A map property source whose values may be {@link LazySecret}s, which are decrypted when the property
+ * is first read rather than when the source is built.
+ */
+public class DecryptingPropertySource extends MapPropertySource {
+
+    public DecryptingPropertySource(String name, Map<String, Object> source) {
+        super(name, source);
+    }
+
+    @Override
+    public Object getProperty(String name) {
+        Object value = super.getProperty(name);
+
+        if (value instanceof LazySecret) {
+            return ((LazySecret) value).get();
+        }
+
+        return value;
+    }
+
+}
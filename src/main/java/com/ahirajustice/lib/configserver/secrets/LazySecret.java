@@ -0,0 +1,58 @@
+package com.ahirajustice.lib.configserver.secrets;
+
+import com.ahirajustice.lib.configserver.enums.LifecycleStage;
+import com.ahirajustice.lib.configserver.metrics.ConfigServerMetrics;
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+
+import java.util.Arrays;
+
+/**
+ * An encrypted config value that is decrypted on first access and then served from memory. The plaintext
+ * is held as a char array, so it can be overwritten once the value is replaced by a refresh.
+ */
+public class LazySecret {
+
+    private final String cipherText;
+    private final String privateKey;
+    private char[] plainText;
+    private boolean destroyed;
+
+    public LazySecret(String cipherText, String privateKey) {
+        this.cipherText = cipherText;
+        this.privateKey = privateKey;
+    }
+
+    public String getCipherText() {
+        return cipherText;
+    }
+
+    public synchronized String get() {
+        if (plainText != null) {
+            return new String(plainText);
+        }
+
+        long start = System.nanoTime();
+        String value = CipherUtils.decryptString(cipherText, privateKey);
+        ConfigServerMetrics.record(LifecycleStage.DECRYPT, System.nanoTime() - start);
+
+        if (!destroyed) {
+            plainText = value.toCharArray();
+        }
+
+        return value;
+    }
+
+    /**
+     * Drops the cached plaintext, overwriting it first when zeroing is enabled. Late readers of a
+     * destroyed secret still get its value, decrypted again without being cached.
+     */
+    public synchronized void destroy(boolean zero) {
+        if (plainText != null && zero) {
+            Arrays.fill(plainText, '\0');
+        }
+
+        plainText = null;
+        destroyed = true;
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.ahirajustice.lib.configserver.secrets;
+
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The encrypted values of one applied config, by key. Each refresh produces a new instance, which reuses
+ * the secrets whose ciphertext did not change so their decrypted values stay cached.
+ */
+public class LazySecrets {
+
+    public static final LazySecrets EMPTY = new LazySecrets(Collections.emptyMap());
+
+    private final Map<String, LazySecret> secrets;
+
+    private LazySecrets(Map<String, LazySecret> secrets) {
+        this.secrets = secrets;
+    }
+
+    public LazySecrets update(List<ConfigEntry> configEntries, String privateKey) {
+        Map<String, LazySecret> updated = new HashMap<>();
+
+        for (ConfigEntry configEntry : configEntries) {
+            if (!Boolean.TRUE.equals(configEntry.getEncrypted())) {
+                continue;
+            }
+
+            LazySecret current = secrets.get(configEntry.getConfigKey());
+
+            if (current != null && current.getCipherText().equals(configEntry.getConfigValue())) {
+                updated.put(configEntry.getConfigKey(), current);
+            }
+            else {
+                updated.put(configEntry.getConfigKey(), new LazySecret(configEntry.getConfigValue(), privateKey));
+            }
+        }
+
+        return new LazySecrets(updated);
+    }
+
+    public LazySecret get(String key) {
+        return secrets.get(key);
+    }
+
+    /**
+     * Resolves a raw config value of this config, decrypting it if the key holds a secret.
+     */
+    public String resolve(String key, String value) {
+        LazySecret secret = secrets.get(key);
+
+        return secret != null ? secret.get() : value;
+    }
+
+    /**
+     * Destroys the secrets of this config that are not carried over into the next one.
+     */
+    public void destroyReplaced(LazySecrets next, boolean zero) {
+        for (Map.Entry<String, LazySecret> entry : secrets.entrySet()) {
+            if (next.secrets.get(entry.getKey()) != entry.getValue()) {
+                entry.getValue().destroy(zero);
+            }
+        }
+    }
+
+}
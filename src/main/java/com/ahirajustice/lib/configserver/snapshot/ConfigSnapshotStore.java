@@ -0,0 +1,121 @@
+package com.ahirajustice.lib.configserver.snapshot;
+
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigSnapshot;
+import com.ahirajustice.lib.configserver.utils.ConfigDigestUtils;
+import com.ahirajustice.lib.configserver.utils.FileUtils;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Persists the last fetched config entries, still encrypted, to a local snapshot file. The file starts
+ * with a format, version and SHA-256 checksum header followed by the JSON entries, and is always
+ * replaced atomically. A snapshot that fails validation is ignored.
+ */
+@Slf4j
+public class ConfigSnapshotStore {
+
+    private static final String FORMAT_HEADER = "#config-server-snapshot:1";
+    private static final String VERSION_HEADER = "#version:";
+    private static final String CHECKSUM_HEADER = "#checksum:sha256:";
+
+    private static final ObjectMapper objectMapper = new ObjectMapper()
+            .configure(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false);
+
+    private final Path path;
+
+    public ConfigSnapshotStore(Path path) {
+        this.path = path;
+    }
+
+    public ConfigSnapshot load() {
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try {
+            byte[] content = Files.readAllBytes(path);
+
+            int formatEnd = indexOfNewline(content, 0);
+            int versionEnd = indexOfNewline(content, formatEnd + 1);
+            int checksumEnd = indexOfNewline(content, versionEnd + 1);
+
+            if (formatEnd < 0 || versionEnd < 0 || checksumEnd < 0) {
+                log.warn("Ignoring truncated config snapshot {}", path);
+                return null;
+            }
+
+            String format = line(content, 0, formatEnd);
+            String version = line(content, formatEnd + 1, versionEnd);
+            String checksum = line(content, versionEnd + 1, checksumEnd);
+            byte[] body = Arrays.copyOfRange(content, checksumEnd + 1, content.length);
+
+            if (!FORMAT_HEADER.equals(format) || !version.startsWith(VERSION_HEADER) || !checksum.startsWith(CHECKSUM_HEADER)) {
+                log.warn("Ignoring config snapshot {} with unknown format", path);
+                return null;
+            }
+
+            if (!checksum.substring(CHECKSUM_HEADER.length()).equals(ConfigDigestUtils.sha256(body))) {
+                log.warn("Ignoring config snapshot {} with invalid checksum", path);
+                return null;
+            }
+
+            List<ConfigEntry> configEntries = objectMapper.readValue(body, new TypeReference<List<ConfigEntry>>() {});
+
+            return new ConfigSnapshot(StringUtils.defaultIfEmpty(version.substring(VERSION_HEADER.length()), null), configEntries);
+        }
+        catch (IOException ex) {
+            log.warn("Unable to read config snapshot {}: {}", path, ex.getMessage());
+            return null;
+        }
+    }
+
+    public void save(ConfigSnapshot snapshot) {
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(snapshot.getConfigEntries());
+
+            ByteArrayOutputStream content = new ByteArrayOutputStream(body.length + 128);
+            content.write(String.format("%s\n%s%s\n%s%s\n",
+                    FORMAT_HEADER,
+                    VERSION_HEADER, StringUtils.defaultString(snapshot.getVersion()),
+                    CHECKSUM_HEADER, ConfigDigestUtils.sha256(body)
+            ).getBytes(StandardCharsets.UTF_8));
+            content.write(body);
+
+            FileUtils.writeAtomically(path, content.toByteArray());
+        }
+        catch (IOException ex) {
+            log.warn("Unable to write config snapshot {}: {}", path, ex.getMessage());
+        }
+    }
+
+    private static int indexOfNewline(byte[] content, int from) {
+        if (from < 0) {
+            return -1;
+        }
+
+        for (int i = from; i < content.length; i++) {
+            if (content[i] == '\n') {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    private static String line(byte[] content, int from, int to) {
+        return new String(content, from, to - from, StandardCharsets.UTF_8);
+    }
+
+}
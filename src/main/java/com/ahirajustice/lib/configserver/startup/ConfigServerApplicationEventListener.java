@@ -1,6 +1,7 @@
 package com.ahirajustice.lib.configserver.startup;
 
 import com.ahirajustice.lib.configserver.ConfigServer;
+import org.springframework.boot.context.event.ApplicationEnvironmentPreparedEvent;
 import org.springframework.boot.context.event.ApplicationStartedEvent;
 import org.springframework.boot.context.event.ApplicationStartingEvent;
 import org.springframework.boot.context.event.SpringApplicationEvent;
@@ -16,6 +17,9 @@ public class ConfigServerApplicationEventListener implements ApplicationListener
         if (event instanceof ApplicationStartingEvent) {
             ConfigServer.getConfig();
         }
+        if (event instanceof ApplicationEnvironmentPreparedEvent) {
+            ConfigServer.configureEnvironment(((ApplicationEnvironmentPreparedEvent)event).getEnvironment());
+        }
         if (event instanceof ApplicationStartedEvent) {
             Set<Class<?>> primarySources = getPrimarySources(event.getSpringApplication().getAllSources());
             ConfigServer.configureRestart(((ApplicationStartedEvent)event).getApplicationContext(), primarySources);
@@ -1,6 +1,8 @@
 package com.ahirajustice.lib.configserver.utils;
 
 import com.ahirajustice.lib.configserver.exceptions.ConfigServerConfigurationException;
+import com.ahirajustice.lib.configserver.models.CipherText;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
 import lombok.AccessLevel;
 import lombok.NoArgsConstructor;
 
@@ -8,19 +10,57 @@ import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
 import javax.crypto.IllegalBlockSizeException;
 import javax.crypto.NoSuchPaddingException;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.ByteBuffer;
 import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
 import java.security.InvalidKeyException;
 import java.security.KeyFactory;
 import java.security.NoSuchAlgorithmException;
 import java.security.PrivateKey;
 import java.security.spec.InvalidKeySpecException;
+import java.security.spec.MGF1ParameterSpec;
 import java.security.spec.PKCS8EncodedKeySpec;
 import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
 
 @NoArgsConstructor(access = AccessLevel.PRIVATE)
 public class CipherUtils {
 
+    /**
+     * Envelope encrypted values have the form ENC2:&lt;wrapped key&gt;:&lt;iv&gt;:&lt;ciphertext&gt;, each part
+     * Base64 encoded. The value is encrypted with AES-256-GCM under a data key, which is wrapped with the
+     * client's RSA public key using OAEP with SHA-256. All values of a payload share one data key, which is
+     * unwrapped once and cached, so decrypting a payload costs one RSA operation instead of one per value,
+     * and values are not limited by the RSA key size.
+     */
+    public static final String ENVELOPE_PREFIX = "ENC2:";
+
+    private static final int PARALLEL_DECRYPT_THRESHOLD = 16;
+    private static final int MAX_CACHED_DATA_KEYS = 64;
+    private static final int GCM_TAG_BITS = 128;
+    private static final OAEPParameterSpec OAEP_SHA256 = new OAEPParameterSpec(
+            "SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT
+    );
+
+    private static final Map<String, PrivateKey> privateKeys = new ConcurrentHashMap<>();
+    private static final Map<ByteBuffer, SecretKey> dataKeys = new ConcurrentHashMap<>();
+    private static final ThreadLocal<DecryptCipher> decryptCiphers = new ThreadLocal<>();
+    private static final ThreadLocal<Cipher> dataKeyCiphers = new ThreadLocal<>();
+
     private static PrivateKey getPrivateKey(String privateKeyString) {
+        return privateKeys.computeIfAbsent(privateKeyString, CipherUtils::parsePrivateKey);
+    }
+
+    private static PrivateKey parsePrivateKey(String privateKeyString) {
         PKCS8EncodedKeySpec keySpec;
         KeyFactory kf;
         PrivateKey privateKey;
@@ -30,33 +70,221 @@ public class CipherUtils {
             keySpec = new PKCS8EncodedKeySpec(privateKeyBytes);
             kf = KeyFactory.getInstance("RSA");
             privateKey = kf.generatePrivate(keySpec);
-        } catch (NoSuchAlgorithmException | InvalidKeySpecException ex) {
+        } catch (NoSuchAlgorithmException | InvalidKeySpecException | IllegalArgumentException ex) {
             throw new ConfigServerConfigurationException(ex.getMessage());
         }
 
         return privateKey;
     }
 
+    /**
+     * Ciphers are not thread safe, so each thread keeps its own instance, initialised for the last
+     * private key it decrypted with. A Cipher returns to its initialised state after doFinal and can be
+     * reused without calling init again.
+     */
+    private static Cipher getDecryptCipher(PrivateKey privateKey) throws NoSuchPaddingException, NoSuchAlgorithmException, InvalidKeyException {
+        DecryptCipher decryptCipher = decryptCiphers.get();
+
+        if (decryptCipher == null || decryptCipher.privateKey != privateKey) {
+            Cipher cipher = decryptCipher != null ? decryptCipher.cipher : Cipher.getInstance("RSA");
+            cipher.init(Cipher.DECRYPT_MODE, privateKey);
+
+            decryptCipher = new DecryptCipher(privateKey, cipher);
+            decryptCiphers.set(decryptCipher);
+        }
+
+        return decryptCipher.cipher;
+    }
+
     public static String decryptString(String value, String privateKeyString) {
-        String decryptedMessage;
+        return decryptString(value, resolvePrivateKey(privateKeyString));
+    }
 
+    private static PrivateKey resolvePrivateKey(String privateKeyString) {
         try {
-            PrivateKey privateKey = getPrivateKey(privateKeyString);
+            return getPrivateKey(privateKeyString);
+        }
+        catch (ConfigServerConfigurationException ex) {
+            throw new ConfigServerConfigurationException("Configured private key is invalid. Update configured private key");
+        }
+    }
 
-            Cipher decryptCipher = Cipher.getInstance("RSA");
-            decryptCipher.init(Cipher.DECRYPT_MODE, privateKey);
+    private static String decryptString(String value, PrivateKey privateKey) {
+        if (value.startsWith(ENVELOPE_PREFIX)) {
+            return decryptEnvelope(value, privateKey);
+        }
+
+        String decryptedMessage;
+
+        try {
+            Cipher decryptCipher = getDecryptCipher(privateKey);
 
             byte[] secretMessageBytes = Base64.getDecoder().decode(value);
             byte[] decryptedMessageBytes = decryptCipher.doFinal(secretMessageBytes);
             decryptedMessage = new String(decryptedMessageBytes, StandardCharsets.UTF_8);
         }
         catch (IllegalBlockSizeException | BadPaddingException | NoSuchPaddingException | NoSuchAlgorithmException ex) {
+            decryptCiphers.remove();
             throw new ConfigServerConfigurationException(ex.getMessage());
         }
-        catch (ConfigServerConfigurationException | InvalidKeyException ex) {
+        catch (InvalidKeyException ex) {
             throw new ConfigServerConfigurationException("Configured private key is invalid. Update configured private key");
         }
 
         return decryptedMessage;
     }
+
+    private static String decryptEnvelope(String value, PrivateKey privateKey) {
+        String[] parts = value.substring(ENVELOPE_PREFIX.length()).split(":", -1);
+
+        if (parts.length != 3) {
+            throw new ConfigServerConfigurationException("Envelope encrypted config value is malformed");
+        }
+
+        try {
+            SecretKey dataKey = getDataKey(Base64.getDecoder().decode(parts[0]), privateKey);
+
+            return decryptWithDataKey(dataKey, Base64.getDecoder().decode(parts[1]), Base64.getDecoder().decode(parts[2]));
+        }
+        catch (IllegalArgumentException ex) {
+            throw new ConfigServerConfigurationException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Decrypts raw ciphertext received in the binary wire format, whose envelope values of a payload share
+     * one wrapped key.
+     */
+    private static String decryptCipherText(CipherText cipherText, PrivateKey privateKey) {
+        if (cipherText.isEnvelope()) {
+            SecretKey dataKey = getDataKey(cipherText.getWrappedKey(), privateKey);
+
+            return decryptWithDataKey(dataKey, cipherText.getIv(), cipherText.getData());
+        }
+
+        try {
+            return new String(getDecryptCipher(privateKey).doFinal(cipherText.getData()), StandardCharsets.UTF_8);
+        }
+        catch (IllegalBlockSizeException | BadPaddingException | NoSuchPaddingException | NoSuchAlgorithmException ex) {
+            decryptCiphers.remove();
+            throw new ConfigServerConfigurationException(ex.getMessage());
+        }
+        catch (InvalidKeyException ex) {
+            throw new ConfigServerConfigurationException("Configured private key is invalid. Update configured private key");
+        }
+    }
+
+    private static String decryptWithDataKey(SecretKey dataKey, byte[] iv, byte[] cipherText) {
+        try {
+            Cipher cipher = dataKeyCiphers.get();
+            if (cipher == null) {
+                cipher = Cipher.getInstance("AES/GCM/NoPadding");
+                dataKeyCiphers.set(cipher);
+            }
+
+            cipher.init(Cipher.DECRYPT_MODE, dataKey, new GCMParameterSpec(GCM_TAG_BITS, iv));
+
+            return new String(cipher.doFinal(cipherText), StandardCharsets.UTF_8);
+        }
+        catch (GeneralSecurityException | IllegalArgumentException ex) {
+            throw new ConfigServerConfigurationException(ex.getMessage());
+        }
+    }
+
+    /**
+     * Data keys are cached on the wrapped key bytes, so a key wrapped in a JSON and in a binary payload
+     * is unwrapped once.
+     */
+    private static SecretKey getDataKey(byte[] wrappedKey, PrivateKey privateKey) {
+        ByteBuffer cacheKey = ByteBuffer.wrap(wrappedKey);
+        SecretKey dataKey = dataKeys.get(cacheKey);
+
+        if (dataKey != null) {
+            return dataKey;
+        }
+
+        try {
+            Cipher unwrapCipher = Cipher.getInstance("RSA/ECB/OAEPPadding");
+            unwrapCipher.init(Cipher.DECRYPT_MODE, privateKey, OAEP_SHA256);
+            dataKey = new SecretKeySpec(unwrapCipher.doFinal(wrappedKey), "AES");
+        }
+        catch (GeneralSecurityException | IllegalArgumentException ex) {
+            throw new ConfigServerConfigurationException("Unable to unwrap config data key. Check configured private key");
+        }
+
+        if (dataKeys.size() >= MAX_CACHED_DATA_KEYS) {
+            dataKeys.clear();
+        }
+        dataKeys.put(cacheKey, dataKey);
+
+        return dataKey;
+    }
+
+    /**
+     * Resolves the value of one config entry, decrypting it when it is encrypted.
+     */
+    public static String decrypt(ConfigEntry entry, String privateKeyString) {
+        if (!Boolean.TRUE.equals(entry.getEncrypted())) {
+            return entry.getConfigValue();
+        }
+
+        return decrypt(entry, resolvePrivateKey(privateKeyString));
+    }
+
+    private static String decrypt(ConfigEntry entry, PrivateKey privateKey) {
+        if (!Boolean.TRUE.equals(entry.getEncrypted())) {
+            return entry.getConfigValue();
+        }
+
+        if (entry.getCipherText() != null) {
+            return decryptCipherText(entry.getCipherText(), privateKey);
+        }
+
+        return decryptString(entry.getConfigValue(), privateKey);
+    }
+
+    /**
+     * Resolves the values of all config entries, decrypting the encrypted ones. Larger batches are
+     * decrypted in parallel across the common fork-join pool. Entry order is preserved.
+     */
+    public static Map<String, String> decryptAll(List<ConfigEntry> configEntries, String privateKeyString) {
+        String[] values = new String[configEntries.size()];
+        long encryptedCount = configEntries.stream().filter(entry -> Boolean.TRUE.equals(entry.getEncrypted())).count();
+
+        if (encryptedCount > 0) {
+            PrivateKey privateKey = resolvePrivateKey(privateKeyString);
+
+            IntStream indices = IntStream.range(0, values.length);
+            if (encryptedCount >= PARALLEL_DECRYPT_THRESHOLD) {
+                indices = indices.parallel();
+            }
+
+            indices.forEach(i -> values[i] = decrypt(configEntries.get(i), privateKey));
+        }
+        else {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = configEntries.get(i).getConfigValue();
+            }
+        }
+
+        Map<String, String> decrypted = new LinkedHashMap<>();
+        for (int i = 0; i < values.length; i++) {
+            decrypted.put(configEntries.get(i).getConfigKey(), values[i]);
+        }
+
+        return decrypted;
+    }
+
+    private static class DecryptCipher {
+
+        private final PrivateKey privateKey;
+        private final Cipher cipher;
+
+        private DecryptCipher(PrivateKey privateKey, Cipher cipher) {
+            this.privateKey = privateKey;
+            this.cipher = cipher;
+        }
+
+    }
+
 }
@@ -0,0 +1,72 @@
+package com.ahirajustice.lib.configserver.utils;
+
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class ConfigDigestUtils {
+
+    private static final char SEPARATOR = '\u0000';
+
+    /**
+     * Computes the hex SHA-256 content digest of a config set, as served by config-server (encrypted values
+     * stay encrypted). Entries are sorted by key and each one contributes its key, value, encrypted and
+     * restartRequired fields separated by NUL characters and terminated by a newline, so the digest does not
+     * depend on entry order.
+     */
+    public static String digest(Collection<ConfigEntry> configEntries) {
+        List<ConfigEntry> sorted = new ArrayList<>(configEntries);
+        sorted.sort(Comparator.comparing(ConfigEntry::getConfigKey, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        MessageDigest messageDigest = newSha256();
+        StringBuilder canonical = new StringBuilder();
+
+        for (ConfigEntry entry : sorted) {
+            canonical.setLength(0);
+            canonical.append(entry.getConfigKey()).append(SEPARATOR)
+                    .append(entry.getConfigValue()).append(SEPARATOR)
+                    .append(Boolean.TRUE.equals(entry.getEncrypted())).append(SEPARATOR)
+                    .append(Boolean.TRUE.equals(entry.getRestartRequired())).append('\n');
+
+            messageDigest.update(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        }
+
+        return hex(messageDigest.digest());
+    }
+
+    /**
+     * Computes the hex SHA-256 digest of the given bytes.
+     */
+    public static String sha256(byte[] content) {
+        return hex(newSha256().digest(content));
+    }
+
+    private static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        }
+        catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static String hex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+
+        for (byte b : digest) {
+            hex.append(String.format("%02x", b));
+        }
+
+        return hex.toString();
+    }
+
+}
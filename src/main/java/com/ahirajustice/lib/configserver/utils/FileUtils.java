@@ -0,0 +1,116 @@
+package com.ahirajustice.lib.configserver.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class FileUtils {
+
+    private static final Pattern DOTENV_KEY = Pattern.compile("[\\w.\\-]+");
+    private static final Pattern DOTENV_LINE_BREAK = Pattern.compile("[\\n\\r\\u0085\\u2028\\u2029]");
+
+    public static void writeAtomically(Path target, byte[] content) throws IOException {
+        writeAtomically(target, out -> out.write(content));
+    }
+
+    /**
+     * Streams the content to a temp file next to the target, forces it to disk and renames it over the
+     * target, so readers see either the previous or the new file and never a truncated one.
+     */
+    public static void writeAtomically(Path target, ContentWriter contentWriter) throws IOException {
+        Path absoluteTarget = target.toAbsolutePath();
+        Path directory = absoluteTarget.getParent();
+
+        if (directory != null) {
+            Files.createDirectories(directory);
+        }
+
+        Path temp = Files.createTempFile(directory, absoluteTarget.getFileName().toString(), ".tmp");
+
+        try {
+            try (FileOutputStream fileOut = new FileOutputStream(temp.toFile())) {
+                OutputStream out = new BufferedOutputStream(fileOut);
+                contentWriter.write(out);
+                out.flush();
+                fileOut.getFD().sync();
+            }
+
+            try {
+                Files.move(temp, absoluteTarget, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            }
+            catch (AtomicMoveNotSupportedException ex) {
+                Files.move(temp, absoluteTarget, StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+        finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    /**
+     * Writes config values as KEY=value lines, atomically, in the form dotenv-java reads back unchanged.
+     * dotenv-java reads one entry per line, trims values and strips one pair of surrounding double quotes,
+     * with no escape sequences, so values that would be changed by that are written in double quotes.
+     */
+    public static void writeDotenv(Path target, Map<String, String> values) throws IOException {
+        for (Map.Entry<String, String> value : values.entrySet()) {
+            if (!isDotenvWritable(value.getKey(), value.getValue())) {
+                throw new IllegalArgumentException(String.format("Config key %s cannot be written to a .env file", value.getKey()));
+            }
+        }
+
+        writeAtomically(target, out -> {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+
+            for (Map.Entry<String, String> value : values.entrySet()) {
+                writer.write(value.getKey());
+                writer.write('=');
+                writer.write(quoteDotenvValue(String.valueOf(value.getValue())));
+                writer.write('\n');
+            }
+
+            writer.flush();
+        });
+    }
+
+    /**
+     * Whether an entry survives a round trip through a .env file. dotenv-java fails on keys other than
+     * letters, digits, '_', '.' and '-', and cannot read values spanning several lines.
+     */
+    public static boolean isDotenvWritable(String key, String value) {
+        return key != null && DOTENV_KEY.matcher(key).matches() && (value == null || !DOTENV_LINE_BREAK.matcher(value).find());
+    }
+
+    private static String quoteDotenvValue(String value) {
+        boolean quote = value.isEmpty()
+                || value.charAt(0) <= ' '
+                || value.charAt(value.length() - 1) <= ' '
+                || value.startsWith("\"")
+                || value.endsWith("\"")
+                || value.indexOf('#') >= 0;
+
+        return quote ? "\"" + value + "\"" : value;
+    }
+
+    @FunctionalInterface
+    public interface ContentWriter {
+
+        void write(OutputStream out) throws IOException;
+
+    }
+
+}
@@ -0,0 +1,56 @@
+package com.ahirajustice.lib.configserver.utils;
+
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.apache.commons.lang3.StringUtils;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class KeyPatternUtils {
+
+    /**
+     * Matches a config key against a pattern. A pattern is either an exact key or a key prefix
+     * followed by a trailing '*', e.g. DATABASE_*.
+     */
+    public static boolean matches(String pattern, String key) {
+        if (pattern == null || key == null) {
+            return false;
+        }
+
+        if ("*".equals(pattern)) {
+            return true;
+        }
+
+        if (pattern.endsWith("*")) {
+            return key.startsWith(pattern.substring(0, pattern.length() - 1));
+        }
+
+        return pattern.equals(key);
+    }
+
+    public static boolean matchesAny(List<String> patterns, String key) {
+        for (String pattern : patterns) {
+            if (matches(pattern, key)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public static List<String> parse(String patterns) {
+        if (StringUtils.isBlank(patterns)) {
+            return Collections.emptyList();
+        }
+
+        return Arrays.stream(patterns.split(","))
+                .map(String::trim)
+                .filter(StringUtils::isNotBlank)
+                .collect(Collectors.toList());
+    }
+
+}
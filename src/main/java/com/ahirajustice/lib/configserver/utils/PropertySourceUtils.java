@@ -0,0 +1,56 @@
+package com.ahirajustice.lib.configserver.utils;
+
+import com.ahirajustice.lib.configserver.secrets.LazySecret;
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import lombok.AccessLevel;
+import lombok.NoArgsConstructor;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.MutablePropertySources;
+import org.springframework.core.env.PropertySource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@NoArgsConstructor(access = AccessLevel.PRIVATE)
+public class PropertySourceUtils {
+
+    private static final String DOTENV_PREFIX = "env.";
+
+    /**
+     * Exposes each config key both as-is and with the spring-dotenv "env." prefix, so ${env.KEY}
+     * placeholders resolve the same way they do against the .env file.
+     */
+    public static Map<String, Object> toProperties(Map<String, String> config) {
+        return toProperties(config, LazySecrets.EMPTY);
+    }
+
+    /**
+     * As {@link #toProperties(Map)}, with the values of encrypted keys exposed as their {@link LazySecret},
+     * to be decrypted by a {@link com.ahirajustice.lib.configserver.secrets.DecryptingPropertySource} on read.
+     */
+    public static Map<String, Object> toProperties(Map<String, String> config, LazySecrets secrets) {
+        Map<String, Object> properties = new HashMap<>(config.size() * 2);
+
+        config.forEach((key, value) -> {
+            LazySecret secret = secrets.get(key);
+            Object property = secret != null ? secret : value;
+
+            properties.put(key, property);
+            properties.put(DOTENV_PREFIX + key, property);
+        });
+
+        return properties;
+    }
+
+    public static void addOrReplaceFirst(MutablePropertySources propertySources, MapPropertySource propertySource) {
+        PropertySource<?> existing = propertySources.get(propertySource.getName());
+
+        if (existing != null) {
+            propertySources.replace(propertySource.getName(), propertySource);
+        }
+        else {
+            propertySources.addFirst(propertySource);
+        }
+    }
+
+}
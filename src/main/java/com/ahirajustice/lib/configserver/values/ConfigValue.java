@@ -0,0 +1,28 @@
+package com.ahirajustice.lib.configserver.values;
+
+import lombok.Getter;
+
+/**
+ * Typed handle to one config key, created once through {@link ConfigValueRegistry} and read on hot paths.
+ * The value is parsed when config is applied, not when it is read, so {@link #get()} is a volatile read
+ * and an array load that never allocates, not even for boxed numbers.
+ */
+public class ConfigValue<T> {
+
+    private final ConfigValueRegistry registry;
+    private final int slot;
+    @Getter
+    private final String key;
+
+    ConfigValue(ConfigValueRegistry registry, int slot, String key) {
+        this.registry = registry;
+        this.slot = slot;
+        this.key = key;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T get() {
+        return (T) registry.getCurrent().getSlot(slot);
+    }
+
+}
@@ -0,0 +1,126 @@
+package com.ahirajustice.lib.configserver.values;
+
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.convert.DurationStyle;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Publishes the applied config as immutable {@link ConfigValues} through a single volatile reference, and
+ * hands out typed {@link ConfigValue} handles. Every registered handle is parsed once per published config,
+ * falling back to its default when the key is missing or cannot be parsed.
+ */
+@Slf4j
+public class ConfigValueRegistry {
+
+    private final List<Slot> slots = new ArrayList<>();
+    private volatile ConfigValues current = ConfigValues.EMPTY;
+
+    public ConfigValues getCurrent() {
+        return current;
+    }
+
+    public ConfigValue<String> stringValue(String key, String defaultValue) {
+        return register(key, value -> value, defaultValue);
+    }
+
+    public ConfigValue<Integer> intValue(String key, int defaultValue) {
+        return register(key, value -> Integer.valueOf(value.trim()), defaultValue);
+    }
+
+    public ConfigValue<Long> longValue(String key, long defaultValue) {
+        return register(key, value -> Long.valueOf(value.trim()), defaultValue);
+    }
+
+    public ConfigValue<Boolean> booleanValue(String key, boolean defaultValue) {
+        return register(key, ConfigValueRegistry::parseBoolean, defaultValue);
+    }
+
+    /**
+     * Durations are parsed like Spring Boot properties: ISO-8601 (PT30S), a number with a unit suffix
+     * (30s, 500ms) or a plain number of milliseconds.
+     */
+    public ConfigValue<Duration> durationValue(String key, Duration defaultValue) {
+        return register(key, value -> DurationStyle.detectAndParse(value.trim(), ChronoUnit.MILLIS), defaultValue);
+    }
+
+    private synchronized <T> ConfigValue<T> register(String key, Function<String, T> parser, T defaultValue) {
+        int slot = slots.size();
+        slots.add(new Slot(key, parser, defaultValue));
+
+        ConfigValues values = current;
+        current = build(values.getVersion(), values.getValues(), values.getSecrets());
+
+        return new ConfigValue<>(this, slot, key);
+    }
+
+    public synchronized void publish(String version, Map<String, String> values, LazySecrets secrets) {
+        current = build(version, Collections.unmodifiableMap(values), secrets);
+    }
+
+    private ConfigValues build(String version, Map<String, String> values, LazySecrets secrets) {
+        Object[] parsed = new Object[slots.size()];
+
+        for (int i = 0; i < parsed.length; i++) {
+            parsed[i] = slots.get(i).parse(values, secrets);
+        }
+
+        return new ConfigValues(version, values, secrets, parsed);
+    }
+
+    private static Boolean parseBoolean(String value) {
+        switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true":
+            case "yes":
+            case "on":
+            case "1":
+                return true;
+            case "false":
+            case "no":
+            case "off":
+            case "0":
+                return false;
+            default:
+                throw new IllegalArgumentException(String.format("Invalid boolean value: %s", value));
+        }
+    }
+
+    private static class Slot {
+
+        private final String key;
+        private final Function<String, ?> parser;
+        private final Object defaultValue;
+
+        private Slot(String key, Function<String, ?> parser, Object defaultValue) {
+            this.key = key;
+            this.parser = parser;
+            this.defaultValue = defaultValue;
+        }
+
+        private Object parse(Map<String, String> values, LazySecrets secrets) {
+            String value = values.get(key);
+
+            if (value == null) {
+                return defaultValue;
+            }
+
+            try {
+                return parser.apply(secrets.resolve(key, value));
+            }
+            catch (RuntimeException ex) {
+                log.warn("Unable to parse config value of {}, using default {}: {}", key, defaultValue, ex.getMessage());
+                return defaultValue;
+            }
+        }
+
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.ahirajustice.lib.configserver.values;
+
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import lombok.Getter;
+
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Immutable view of one applied config. Besides the raw values, it holds the parsed value of every
+ * registered {@link ConfigValue}, indexed by the handle's slot, so reading a handle is an array load.
+ */
+public class ConfigValues {
+
+    public static final ConfigValues EMPTY = new ConfigValues(null, Collections.emptyMap(), LazySecrets.EMPTY, new Object[0]);
+
+    @Getter
+    private final String version;
+    private final Map<String, String> values;
+    private final LazySecrets secrets;
+    private final Object[] slots;
+
+    ConfigValues(String version, Map<String, String> values, LazySecrets secrets, Object[] slots) {
+        this.version = version;
+        this.values = values;
+        this.secrets = secrets;
+        this.slots = slots;
+    }
+
+    /**
+     * Returns the value of a key, decrypting it if it holds a lazily decrypted secret, or null when the
+     * key is not set.
+     */
+    public String get(String key) {
+        String value = values.get(key);
+        return value != null ? secrets.resolve(key, value) : null;
+    }
+
+    public boolean containsKey(String key) {
+        return values.containsKey(key);
+    }
+
+    public int size() {
+        return values.size();
+    }
+
+    Object getSlot(int slot) {
+        return slots[slot];
+    }
+
+    Map<String, String> getValues() {
+        return values;
+    }
+
+    LazySecrets getSecrets() {
+        return secrets;
+    }
+
+}
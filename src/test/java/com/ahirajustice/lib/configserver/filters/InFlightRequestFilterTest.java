@@ -0,0 +1,68 @@
+package com.ahirajustice.lib.configserver.filters;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InFlightRequestFilterTest {
+
+    private final InFlightRequestFilter filter = new InFlightRequestFilter();
+
+    @Test
+    void awaitIdleReturnsImmediatelyWithoutRequests() throws Exception {
+        assertThat(filter.awaitIdle(0)).isTrue();
+    }
+
+    @Test
+    void awaitIdleWaitsForInFlightRequest() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<Void> request = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), (req, res) -> {
+                    started.countDown();
+                    awaitQuietly(release);
+                });
+            }
+            catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(filter.getInFlight()).isEqualTo(1);
+        assertThat(filter.awaitIdle(50)).isFalse();
+
+        CompletableFuture<Boolean> drain = CompletableFuture.supplyAsync(() -> {
+            try {
+                return filter.awaitIdle(5000);
+            }
+            catch (InterruptedException ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+
+        release.countDown();
+        request.get(5, TimeUnit.SECONDS);
+
+        assertThat(drain.get(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(filter.getInFlight()).isZero();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.ahirajustice.lib.configserver.http;
+
+import com.ahirajustice.lib.configserver.exceptions.ConfigFetchException;
+import com.ahirajustice.lib.configserver.models.ConfigDelta;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResponse;
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+import com.ahirajustice.lib.configserver.utils.ConfigDigestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BinaryConfigCodecTest {
+
+    private static final byte[] MAX_VARINT = {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, 0x07};
+
+    @Test
+    void roundTripsEncryptedEntriesWithBase64Value() throws Exception {
+        Base64.Encoder encoder = Base64.getEncoder();
+        String envelope = String.format("%s%s:%s:%s", CipherUtils.ENVELOPE_PREFIX,
+                encoder.encodeToString(bytes("wrapped-key")), encoder.encodeToString(bytes("iv")), encoder.encodeToString(bytes("data")));
+
+        ConfigFetchResponse response = roundTrip(entry("PLAIN", "value", false), entry("SECRET", envelope, true), entry("RSA", encoder.encodeToString(bytes("rsa")), true));
+
+        assertThat(response.getConfigEntries()).extracting(ConfigEntry::getConfigValue)
+                .containsExactly("value", envelope, encoder.encodeToString(bytes("rsa")));
+        assertThat(response.getConfigEntries().get(1).getCipherText().getWrappedKey()).isEqualTo(bytes("wrapped-key"));
+    }
+
+    @Test
+    void readsCiphertextWithoutItsBase64Form() throws Exception {
+        String rsa = Base64.getEncoder().encodeToString(bytes("rsa"));
+        ConfigEntry written = entry("RSA", rsa, true);
+
+        ConfigEntry read = roundTrip(written).getConfigEntries().get(0);
+        ConfigEntry readAgain = roundTrip(written).getConfigEntries().get(0);
+
+        assertThat(ReflectionTestUtils.getField(read, "configValue")).isNull();
+        assertThat(read.hasSameContent(readAgain)).isTrue();
+        assertThat(read.hasSameContent(written)).isTrue();
+        assertThat(ConfigDigestUtils.digest(List.of(read))).isEqualTo(ConfigDigestUtils.digest(List.of(written)));
+        assertThat(new ObjectMapper().writeValueAsString(read)).contains(rsa);
+    }
+
+    @Test
+    void roundTripsDelta() throws Exception {
+        ConfigDelta delta = new ConfigDelta();
+        delta.setVersion("8");
+        delta.getChanged().add(entry("A", "2", false));
+        delta.getRemoved().add("B");
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryConfigCodec.write(out, delta);
+        ConfigFetchResponse response = BinaryConfigCodec.read(new ByteArrayInputStream(out.toByteArray()));
+
+        assertThat(response.getDelta().getVersion()).isEqualTo("8");
+        assertThat(response.getDelta().getChanged()).extracting(ConfigEntry::getConfigValue).containsExactly("2");
+        assertThat(response.getDelta().getRemoved()).containsExactly("B");
+    }
+
+    @Test
+    void rejectsKeyTableLargerThanMaxPayload() {
+        assertThatThrownBy(() -> read(header(), MAX_VARINT)).isInstanceOf(ConfigFetchException.class);
+    }
+
+    @Test
+    void rejectsValueLongerThanMaxPayload() {
+        assertThatThrownBy(() -> read(header(), new byte[] {1}, MAX_VARINT)).isInstanceOf(ConfigFetchException.class);
+    }
+
+    @Test
+    void rejectsEntryCountLargerThanMaxPayload() {
+        assertThatThrownBy(() -> read(header(), new byte[] {0}, MAX_VARINT)).isInstanceOf(ConfigFetchException.class);
+    }
+
+    @Test
+    void rejectsTruncatedValue() {
+        assertThatThrownBy(() -> read(header(), new byte[] {1, 100, 1, 2, 3})).isInstanceOf(ConfigFetchException.class);
+    }
+
+    private static ConfigFetchResponse roundTrip(ConfigEntry... configEntries) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryConfigCodec.write(out, Arrays.asList(configEntries));
+
+        return BinaryConfigCodec.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static ConfigFetchResponse read(byte[]... parts) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            out.write(part);
+        }
+
+        return BinaryConfigCodec.read(new ByteArrayInputStream(out.toByteArray()));
+    }
+
+    private static byte[] header() {
+        return new byte[] {'C', 'S', 'B', 1, 0};
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static ConfigEntry entry(String key, String value, boolean encrypted) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey(key);
+        entry.setConfigValue(value);
+        entry.setEncrypted(encrypted);
+        return entry;
+    }
+
+}
@@ -0,0 +1,152 @@
+package com.ahirajustice.lib.configserver.http;
+
+import com.ahirajustice.lib.configserver.exceptions.ConfigFetchException;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResponse;
+import com.ahirajustice.lib.configserver.utils.CipherUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConfigResponseReaderTest {
+
+    private static final int ENTRY_COUNT = 4000;
+    private static final int VALUE_SIZE = 2048;
+
+    @Test
+    void streamsMultiMegabyteJsonPayload() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        AtomicLong valueBytes = new AtomicLong();
+
+        ConfigFetchResponse response = ConfigResponseReader.read(generateJson(ENTRY_COUNT, VALUE_SIZE), MediaType.APPLICATION_JSON, entry -> {
+            assertThat(entry.getConfigKey()).isEqualTo(key(count.getAndIncrement()));
+            valueBytes.addAndGet(CipherUtils.decrypt(entry, null).length());
+        });
+
+        assertThat(count.get()).isEqualTo(ENTRY_COUNT);
+        assertThat(valueBytes.get()).isEqualTo((long) ENTRY_COUNT * VALUE_SIZE);
+        assertThat(response.getBytes()).isGreaterThan(8L * 1024 * 1024);
+        assertThat(response.getConfigEntries()).isNull();
+        assertThat(response.isDelta()).isFalse();
+    }
+
+    @Test
+    void streamsMultiMegabyteBinaryPayload() throws Exception {
+        List<ConfigEntry> configEntries = new ArrayList<>();
+        for (int i = 0; i < ENTRY_COUNT; i++) {
+            configEntries.add(entry(key(i), StringUtils.repeat('x', VALUE_SIZE)));
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        BinaryConfigCodec.write(out, configEntries);
+        AtomicInteger count = new AtomicInteger();
+
+        ConfigFetchResponse response = ConfigResponseReader.read(new ByteArrayInputStream(out.toByteArray()), BinaryConfigCodec.MEDIA_TYPE, entry -> {
+            assertThat(entry.getConfigKey()).isEqualTo(key(count.getAndIncrement()));
+            assertThat(entry.getConfigValue()).hasSize(VALUE_SIZE);
+        });
+
+        assertThat(count.get()).isEqualTo(ENTRY_COUNT);
+        assertThat(response.getBytes()).isEqualTo(out.size());
+        assertThat(response.getConfigEntries()).isNull();
+    }
+
+    @Test
+    void collectsEntriesWithoutConsumer() throws Exception {
+        ConfigFetchResponse response = ConfigResponseReader.read(json("[{\"configKey\":\"A\",\"configValue\":\"1\"},{\"configKey\":\"B\",\"configValue\":\"2\"}]"), MediaType.APPLICATION_JSON);
+
+        assertThat(response.getConfigEntries()).extracting(ConfigEntry::getConfigKey).containsExactly("A", "B");
+    }
+
+    @Test
+    void readsDelta() throws Exception {
+        ConfigFetchResponse response = ConfigResponseReader.read(json("{\"version\":\"7\",\"added\":[{\"configKey\":\"A\",\"configValue\":\"1\"}],\"changed\":[],\"removed\":[\"B\"]}"), MediaType.APPLICATION_JSON);
+
+        assertThat(response.isDelta()).isTrue();
+        assertThat(response.getDelta().getVersion()).isEqualTo("7");
+        assertThat(response.getDelta().getAdded()).extracting(ConfigEntry::getConfigKey).containsExactly("A");
+        assertThat(response.getDelta().getRemoved()).containsExactly("B");
+    }
+
+    @Test
+    void rejectsUnexpectedTokenInConfigSet() {
+        assertThatThrownBy(() -> ConfigResponseReader.read(json("[{\"configKey\":\"A\",\"configValue\":\"1\"},42,{\"configKey\":\"B\"}]"), MediaType.APPLICATION_JSON))
+                .isInstanceOf(ConfigFetchException.class);
+    }
+
+    @Test
+    void rejectsTruncatedConfigSet() {
+        assertThatThrownBy(() -> ConfigResponseReader.read(json("[{\"configKey\":\"A\",\"configValue\":\"1\"}"), MediaType.APPLICATION_JSON))
+                .isInstanceOf(ConfigFetchException.class);
+    }
+
+    @Test
+    void rejectsTruncatedRemovedKeys() {
+        assertThatThrownBy(() -> ConfigResponseReader.read(json("{\"version\":\"7\",\"removed\":[\"B\""), MediaType.APPLICATION_JSON))
+                .isInstanceOf(ConfigFetchException.class);
+    }
+
+    /**
+     * Generates the payload entry by entry as it is read, so the test itself does not hold it in memory.
+     */
+    private static InputStream generateJson(int entryCount, int valueSize) {
+        String value = StringUtils.repeat('x', valueSize);
+
+        return new SequenceInputStream(new Enumeration<InputStream>() {
+            private int index = -1;
+
+            @Override
+            public boolean hasMoreElements() {
+                return index <= entryCount;
+            }
+
+            @Override
+            public InputStream nextElement() {
+                int current = index++;
+
+                if (current < 0) {
+                    return json("[");
+                }
+
+                if (current == entryCount) {
+                    return json("]");
+                }
+
+                String separator = current > 0 ? "," : "";
+                return json(String.format("%s{\"configKey\":\"%s\",\"configValue\":\"%s\",\"encrypted\":false}", separator, key(current), value));
+            }
+        });
+    }
+
+    private static InputStream json(String content) {
+        return new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String key(int index) {
+        return String.format("KEY_%05d", index);
+    }
+
+    private static ConfigEntry entry(String key, String value) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey(key);
+        entry.setConfigValue(value);
+        entry.setEncrypted(false);
+        return entry;
+    }
+
+}
@@ -0,0 +1,89 @@
+package com.ahirajustice.lib.configserver.http;
+
+import com.ahirajustice.lib.configserver.exceptions.ConfigFetchException;
+import com.ahirajustice.lib.configserver.models.HttpClientSettings;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.util.StreamUtils;
+import org.springframework.web.client.ResourceAccessException;
+
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ConfigServerHttpClientTest {
+
+    private final AtomicInteger requests = new AtomicInteger();
+    private HttpServer server;
+    private String url;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            byte[] body = "[{\"configKey\":".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = String.format("http://localhost:%d/api/configs/fetch", server.getAddress().getPort());
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop(0);
+    }
+
+    @Test
+    void doesNotRetryMalformedResponse() {
+        ConfigServerHttpClient client = client(3, 2);
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> client.execute(url, HttpMethod.GET, new HttpHeaders(),
+                    response -> ConfigResponseReader.read(response.getBody(), response.getHeaders().getContentType())))
+                    .isInstanceOf(ConfigFetchException.class);
+        }
+
+        assertThat(requests).hasValue(3);
+    }
+
+    @Test
+    void retriesReadFailures() {
+        ConfigServerHttpClient client = client(2, 10);
+
+        assertThatThrownBy(() -> client.execute(url, HttpMethod.GET, new HttpHeaders(), response -> {
+            StreamUtils.copyToString(response.getBody(), StandardCharsets.UTF_8);
+            throw new SocketTimeoutException("Read timed out");
+        })).isInstanceOf(ResourceAccessException.class);
+
+        assertThat(requests).hasValue(3);
+    }
+
+    private static ConfigServerHttpClient client(int maxRetries, int circuitBreakerThreshold) {
+        return new ConfigServerHttpClient(HttpClientSettings.builder()
+                .connectTimeoutMs(1000)
+                .readTimeoutMs(1000)
+                .maxConnections(1)
+                .maxRetries(maxRetries)
+                .retryBackoffMs(1)
+                .retryMaxBackoffMs(1)
+                .circuitBreakerThreshold(circuitBreakerThreshold)
+                .circuitBreakerCooldownMs(60000)
+                .build());
+    }
+
+}
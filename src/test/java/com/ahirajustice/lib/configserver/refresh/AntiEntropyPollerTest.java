@@ -0,0 +1,90 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AntiEntropyPollerTest {
+
+    private static final Boolean FAIL = null;
+
+    @Test
+    void backsOffOnFailureAndResetsOnlyOnDrift() {
+        Iterator<Boolean> outcomes = Arrays.asList(FAIL, FAIL, FAIL, FAIL, true, false).iterator();
+        ManualScheduler scheduler = new ManualScheduler();
+
+        AntiEntropyPoller poller = new AntiEntropyPoller(10, 80, () -> {
+            Boolean outcome = outcomes.next();
+
+            if (outcome == FAIL) {
+                throw new IllegalStateException("config server unavailable");
+            }
+
+            return outcome;
+        }, scheduler);
+        poller.start();
+
+        List<Long> intervals = new ArrayList<>();
+        while (outcomes.hasNext()) {
+            intervals.add(poller.getIntervalMs());
+            scheduler.runNext();
+        }
+
+        assertThat(intervals).containsExactly(10L, 20L, 40L, 80L, 80L, 10L);
+        assertThat(poller.getIntervalMs()).isEqualTo(20);
+        assertThat(poller.getFailedPolls()).isEqualTo(4);
+        assertThat(poller.getDriftPolls()).isEqualTo(1);
+        assertThat(poller.getInSyncPolls()).isEqualTo(1);
+    }
+
+    @Test
+    void jittersDelayByUpToTenPercent() {
+        ManualScheduler scheduler = new ManualScheduler();
+        AntiEntropyPoller poller = new AntiEntropyPoller(1000, 8000, () -> false, scheduler);
+        poller.start();
+        poller.start();
+
+        for (long interval : new long[] {1000, 2000, 4000, 8000, 8000}) {
+            assertThat(scheduler.tasks).hasSize(1);
+            assertThat(scheduler.delaysMs.get(scheduler.delaysMs.size() - 1)).isBetween(interval, interval + interval / 10);
+            scheduler.runNext();
+        }
+    }
+
+    /**
+     * Records scheduled checks instead of running them, so the test runs each one in turn on its own thread
+     * without waiting for the delay.
+     */
+    private static class ManualScheduler extends ScheduledThreadPoolExecutor {
+
+        private final Queue<Runnable> tasks = new ArrayDeque<>();
+        private final List<Long> delaysMs = new ArrayList<>();
+
+        private ManualScheduler() {
+            super(0);
+        }
+
+        @Override
+        public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+            tasks.add(command);
+            delaysMs.add(unit.toMillis(delay));
+            return null;
+        }
+
+        private void runNext() {
+            tasks.remove().run();
+        }
+
+    }
+
+}
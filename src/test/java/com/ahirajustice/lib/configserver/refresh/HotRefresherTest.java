@@ -0,0 +1,169 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import com.ahirajustice.lib.configserver.models.ConfigDiff;
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import lombok.Getter;
+import lombok.Setter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.ConstructorBinding;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HotRefresherTest {
+
+    private AnnotationConfigApplicationContext context;
+
+    @AfterEach
+    void close() {
+        if (context != null) {
+            context.close();
+        }
+    }
+
+    @Test
+    void rebindsBeanBoundThroughPlaceholder() {
+        start(PoolConfig.class);
+
+        assertThat(HotRefresher.apply(context, diff("POOL_SIZE", "8"), LazySecrets.EMPTY)).isTrue();
+        assertThat(context.getBean(PoolProperties.class).getSize()).isEqualTo(8);
+    }
+
+    @Test
+    void rebindsBeanBoundThroughPropertyNameKey() {
+        start(PoolConfig.class);
+
+        assertThat(HotRefresher.apply(context, diff("app.pool.name", "replica"), LazySecrets.EMPTY)).isTrue();
+        assertThat(context.getBean(PoolProperties.class).getName()).isEqualTo("replica");
+    }
+
+    @Test
+    void leavesUnrelatedBeansAlone() {
+        start(PoolConfig.class);
+        CacheProperties cache = context.getBean(CacheProperties.class);
+        cache.setTtl(42);
+
+        assertThat(HotRefresher.apply(context, diff("app.pool.name", "replica"), LazySecrets.EMPTY)).isTrue();
+        assertThat(cache.getTtl()).isEqualTo(42);
+    }
+
+    @Test
+    void refusesKeysBoundToNoBean() {
+        start(PoolConfig.class);
+
+        assertThat(HotRefresher.apply(context, diff("UNRELATED", "x"), LazySecrets.EMPTY)).isFalse();
+        assertThat(context.getEnvironment().getPropertySources().contains(HotRefresher.PROPERTY_SOURCE_NAME)).isFalse();
+    }
+
+    @Test
+    void refusesKeysInjectedWithValue() {
+        start(GreetingConfig.class);
+
+        assertThat(HotRefresher.apply(context, diff("GREETING", "hi"), LazySecrets.EMPTY)).isFalse();
+        assertThat(context.getBean(GreetingService.class).getGreeting()).isEqualTo("hello");
+        assertThat(context.getEnvironment().getPropertySources().contains(HotRefresher.PROPERTY_SOURCE_NAME)).isFalse();
+    }
+
+    @Test
+    void refusesWholeDiffWhenOneKeyIsUnbound() {
+        start(PoolConfig.class);
+        Map<String, String> config = new HashMap<>();
+        config.put("POOL_SIZE", "8");
+        config.put("GREETING", "hi");
+
+        assertThat(HotRefresher.apply(context, ConfigDiff.between(Collections.emptyMap(), config, k -> false), LazySecrets.EMPTY)).isFalse();
+        assertThat(context.getBean(PoolProperties.class).getSize()).isEqualTo(4);
+    }
+
+    @Test
+    void refusesKeysBoundToImmutableBean() {
+        start(LimitsConfig.class);
+
+        assertThat(HotRefresher.apply(context, diff("RATE_LIMIT", "20"), LazySecrets.EMPTY)).isFalse();
+        assertThat(context.getEnvironment().getPropertySources().contains(HotRefresher.PROPERTY_SOURCE_NAME)).isFalse();
+    }
+
+    private void start(Class<?> configClass) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("app.pool.size", "${POOL_SIZE}");
+        properties.put("app.limits.rate", "${env.RATE_LIMIT:5}");
+        properties.put("POOL_SIZE", "4");
+        properties.put("GREETING", "hello");
+
+        context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("application", properties));
+        context.register(configClass);
+        context.refresh();
+    }
+
+    private static ConfigDiff diff(String key, String value) {
+        return ConfigDiff.between(Collections.emptyMap(), Collections.singletonMap(key, value), k -> false);
+    }
+
+    @Configuration
+    @EnableConfigurationProperties({PoolProperties.class, CacheProperties.class})
+    static class PoolConfig {
+    }
+
+    @Configuration
+    @EnableConfigurationProperties(LimitsProperties.class)
+    static class LimitsConfig {
+    }
+
+    @Configuration
+    @Import(GreetingService.class)
+    static class GreetingConfig {
+    }
+
+    @Getter
+    static class GreetingService {
+
+        @Value("${GREETING}")
+        private String greeting;
+
+    }
+
+    @Getter
+    @Setter
+    @ConfigurationProperties("app.pool")
+    static class PoolProperties {
+
+        private int size;
+        private String name;
+
+    }
+
+    @Getter
+    @Setter
+    @ConfigurationProperties("app.cache")
+    static class CacheProperties {
+
+        private int ttl;
+
+    }
+
+    @Getter
+    @ConstructorBinding
+    @ConfigurationProperties("app.limits")
+    static class LimitsProperties {
+
+        private final int rate;
+
+        LimitsProperties(int rate) {
+            this.rate = rate;
+        }
+
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import com.ahirajustice.lib.configserver.enums.RefreshPhase;
+import com.ahirajustice.lib.configserver.enums.RefreshState;
+import com.ahirajustice.lib.configserver.models.RefreshStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RefreshTrackerTest {
+
+    @Test
+    void interruptsRefreshThatTimesOut() throws Exception {
+        RefreshTracker tracker = new RefreshTracker(4, 200);
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        RefreshStatus status = tracker.submit(refreshStatus -> {
+            try {
+                Thread.sleep(10000);
+            }
+            catch (InterruptedException ex) {
+                interrupted.countDown();
+            }
+        });
+
+        assertThat(interrupted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(status.getState()).isEqualTo(RefreshState.FAILED);
+        assertThat(status.getMessage()).contains("200ms");
+    }
+
+    @Test
+    void dropsQueuedRefreshThatTimesOut() throws Exception {
+        RefreshTracker tracker = new RefreshTracker(4, 300);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicBoolean queuedRan = new AtomicBoolean();
+
+        tracker.submit(refreshStatus -> awaitUninterruptibly(release));
+        RefreshStatus queued = tracker.submit(refreshStatus -> queuedRan.set(true));
+
+        Thread.sleep(600);
+        release.countDown();
+
+        RefreshStatus next = tracker.submit(refreshStatus -> refreshStatus.recordPhase(RefreshPhase.APPLIED));
+        awaitState(next, RefreshState.SUCCEEDED);
+
+        assertThat(queued.getState()).isEqualTo(RefreshState.FAILED);
+        assertThat(queuedRan).isFalse();
+    }
+
+    @Test
+    void reportsFailureOfRefresh() throws Exception {
+        RefreshTracker tracker = new RefreshTracker(4, 5000);
+
+        RefreshStatus status = tracker.submit(refreshStatus -> {
+            throw new IllegalStateException("broadcast failed");
+        });
+
+        awaitState(status, RefreshState.FAILED);
+        assertThat(status.getMessage()).isEqualTo("broadcast failed");
+    }
+
+    private static void awaitState(RefreshStatus status, RefreshState state) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+
+        while (status.getState() != state && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(status.getState()).isEqualTo(state);
+    }
+
+    private static void awaitUninterruptibly(CountDownLatch latch) {
+        boolean interrupted = false;
+
+        while (true) {
+            try {
+                latch.await();
+                break;
+            }
+            catch (InterruptedException ex) {
+                interrupted = true;
+            }
+        }
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
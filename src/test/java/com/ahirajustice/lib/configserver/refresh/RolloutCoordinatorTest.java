@@ -0,0 +1,107 @@
+package com.ahirajustice.lib.configserver.refresh;
+
+import com.ahirajustice.lib.configserver.enums.RolloutMode;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntConsumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class RolloutCoordinatorTest {
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void waitsForPeersRankedAheadAndAnnouncesTurn() {
+        KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+        FakeTimer timer = new FakeTimer();
+        RolloutCoordinator coordinator = new RolloutCoordinator(RolloutMode.NONE, 0, 1, 60000, "pod-b", "service.rollout", timer);
+        coordinator.setKafkaTemplate(kafkaTemplate);
+
+        coordinator.onPeerEvent("pod-a", RolloutCoordinator.WAITING);
+        coordinator.onPeerEvent("pod-c", RolloutCoordinator.WAITING);
+
+        timer.onSleep = sleeps -> {
+            // Still queued behind pod-a, and then waiting for it to finish
+            verify(kafkaTemplate, never()).send("service.rollout", "pod-b", RolloutCoordinator.STARTED);
+
+            if (sleeps == 2) {
+                coordinator.onPeerEvent("pod-a", RolloutCoordinator.STARTED);
+            }
+            else if (sleeps == 3) {
+                coordinator.onPeerEvent("pod-a", RolloutCoordinator.COMPLETED);
+            }
+        };
+
+        coordinator.awaitTurn();
+
+        assertThat(timer.sleepsMs).hasSize(3);
+        verify(kafkaTemplate).send("service.rollout", "pod-b", RolloutCoordinator.WAITING);
+        verify(kafkaTemplate).send("service.rollout", "pod-b", RolloutCoordinator.STARTED);
+        assertThat(coordinator.getExpiredTurns()).isZero();
+
+        coordinator.complete();
+        verify(kafkaTemplate).send("service.rollout", "pod-b", RolloutCoordinator.COMPLETED);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void countsTurnsNotGrantedWithinLease() {
+        KafkaTemplate<String, String> kafkaTemplate = mock(KafkaTemplate.class);
+        FakeTimer timer = new FakeTimer();
+        RolloutCoordinator coordinator = new RolloutCoordinator(RolloutMode.NONE, 0, 1, 1000, "pod-b", "service.rollout", timer);
+        coordinator.setKafkaTemplate(kafkaTemplate);
+
+        // pod-a keeps announcing, so its turn never expires
+        coordinator.onPeerEvent("pod-a", RolloutCoordinator.STARTED);
+        timer.onSleep = sleeps -> coordinator.onPeerEvent("pod-a", RolloutCoordinator.STARTED);
+
+        coordinator.awaitTurn();
+
+        assertThat(timer.now).isGreaterThanOrEqualTo(1000);
+        assertThat(coordinator.getExpiredTurns()).isEqualTo(1);
+        verify(kafkaTemplate).send("service.rollout", "pod-b", RolloutCoordinator.STARTED);
+    }
+
+    @Test
+    void staggersByPodNameWithinWindow() {
+        FakeTimer timer = new FakeTimer();
+        RolloutCoordinator coordinator = new RolloutCoordinator(RolloutMode.STAGGER, 10000, 0, 60000, "pod-b", "service.rollout", timer);
+
+        coordinator.awaitTurn();
+        coordinator.awaitTurn();
+
+        assertThat(timer.sleepsMs).hasSize(2);
+        assertThat(timer.sleepsMs.get(0)).isBetween(0L, 9999L).isEqualTo(timer.sleepsMs.get(1));
+    }
+
+    /**
+     * Advances its time on every sleep instead of sleeping, then runs the given action with the number of
+     * sleeps so far.
+     */
+    private static class FakeTimer implements RolloutCoordinator.Timer {
+
+        private final List<Long> sleepsMs = new ArrayList<>();
+        private IntConsumer onSleep = sleeps -> {};
+        private long now;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public void sleep(long millis) {
+            now += millis;
+            sleepsMs.add(millis);
+            onSleep.accept(sleepsMs.size());
+        }
+
+    }
+
+}
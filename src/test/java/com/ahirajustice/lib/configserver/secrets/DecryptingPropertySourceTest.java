@@ -0,0 +1,82 @@
+package com.ahirajustice.lib.configserver.secrets;
+
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.utils.PropertySourceUtils;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DecryptingPropertySourceTest {
+
+    private static KeyPair keyPair;
+    private static String privateKey;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        privateKey = Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded());
+    }
+
+    @Test
+    void decryptsSecretsWhenRead() throws Exception {
+        String cipherText = encrypt("secret");
+        LazySecrets secrets = LazySecrets.EMPTY.update(List.of(entry("SECRET", cipherText)), privateKey);
+        DecryptingPropertySource propertySource = new DecryptingPropertySource("config", PropertySourceUtils.toProperties(Map.of("PLAIN", "value", "SECRET", cipherText), secrets));
+
+        assertThat(ReflectionTestUtils.getField(secrets.get("SECRET"), "plainText")).isNull();
+
+        assertThat(propertySource.getProperty("PLAIN")).isEqualTo("value");
+        assertThat(propertySource.getProperty("SECRET")).isEqualTo("secret");
+        assertThat(propertySource.getProperty("env.SECRET")).isEqualTo("secret");
+        assertThat(propertySource.getSource().get("SECRET")).isSameAs(secrets.get("SECRET"));
+    }
+
+    @Test
+    void servesNewSecretsOnceRefreshReplacesSource() throws Exception {
+        String oldCipherText = encrypt("old");
+        String newCipherText = encrypt("new");
+        LazySecrets previous = LazySecrets.EMPTY.update(List.of(entry("SECRET", oldCipherText)), privateKey);
+        LazySecrets next = previous.update(List.of(entry("SECRET", newCipherText)), privateKey);
+
+        StandardEnvironment environment = new StandardEnvironment();
+        PropertySourceUtils.addOrReplaceFirst(environment.getPropertySources(),
+                new DecryptingPropertySource("config", PropertySourceUtils.toProperties(Map.of("SECRET", oldCipherText), previous)));
+        assertThat(environment.getProperty("SECRET")).isEqualTo("old");
+
+        PropertySourceUtils.addOrReplaceFirst(environment.getPropertySources(),
+                new DecryptingPropertySource("config", PropertySourceUtils.toProperties(Map.of("SECRET", newCipherText), next)));
+        previous.destroyReplaced(next, true);
+
+        assertThat(environment.getProperty("SECRET")).isEqualTo("new");
+        assertThat(environment.resolvePlaceholders("${env.SECRET}-suffix")).isEqualTo("new-suffix");
+    }
+
+    private static String encrypt(String value) throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA");
+        cipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+
+        return Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ConfigEntry entry(String key, String value) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey(key);
+        entry.setConfigValue(value);
+        entry.setEncrypted(true);
+        return entry;
+    }
+
+}
@@ -0,0 +1,107 @@
+package com.ahirajustice.lib.configserver.secrets;
+
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.util.Base64;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LazySecretsTest {
+
+    private static KeyPair keyPair;
+    private static String privateKey;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        privateKey = Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded());
+    }
+
+    @Test
+    void decryptsOnFirstAccessAndCaches() throws Exception {
+        LazySecret secret = new LazySecret(encrypt("secret"), privateKey);
+        assertThat(plainText(secret)).isNull();
+
+        assertThat(secret.get()).isEqualTo("secret");
+        char[] cached = plainText(secret);
+        assertThat(cached).containsExactly("secret".toCharArray());
+
+        assertThat(secret.get()).isEqualTo("secret");
+        assertThat(plainText(secret)).isSameAs(cached);
+    }
+
+    @Test
+    void resolvesOnlyEncryptedKeys() throws Exception {
+        LazySecrets secrets = LazySecrets.EMPTY.update(List.of(entry("PLAIN", "value", false), entry("SECRET", encrypt("secret"), true)), privateKey);
+
+        assertThat(secrets.get("PLAIN")).isNull();
+        assertThat(secrets.resolve("PLAIN", "value")).isEqualTo("value");
+        assertThat(secrets.resolve("SECRET", "ignored")).isEqualTo("secret");
+    }
+
+    @Test
+    void keepsUnchangedSecretsAcrossRefresh() throws Exception {
+        ConfigEntry unchanged = entry("UNCHANGED", encrypt("same"), true);
+        LazySecrets previous = LazySecrets.EMPTY.update(List.of(unchanged, entry("ROTATED", encrypt("old"), true)), privateKey);
+        LazySecret kept = previous.get("UNCHANGED");
+        LazySecret rotated = previous.get("ROTATED");
+        kept.get();
+        rotated.get();
+
+        LazySecrets next = previous.update(List.of(unchanged, entry("ROTATED", encrypt("new"), true)), privateKey);
+        previous.destroyReplaced(next, true);
+
+        assertThat(next.get("UNCHANGED")).isSameAs(kept);
+        assertThat(plainText(kept)).containsExactly("same".toCharArray());
+        assertThat(next.get("ROTATED")).isNotSameAs(rotated);
+        assertThat(next.resolve("ROTATED", null)).isEqualTo("new");
+    }
+
+    @Test
+    void dropsReplacedSecretsOnRefresh() throws Exception {
+        LazySecrets previous = LazySecrets.EMPTY.update(List.of(entry("ROTATED", encrypt("old"), true), entry("REMOVED", encrypt("gone"), true)), privateKey);
+        LazySecret rotated = previous.get("ROTATED");
+        rotated.get();
+        char[] cached = plainText(rotated);
+
+        LazySecrets next = previous.update(List.of(entry("ROTATED", encrypt("new"), true)), privateKey);
+        previous.destroyReplaced(next, true);
+
+        assertThat(next.get("REMOVED")).isNull();
+        assertThat(plainText(rotated)).isNull();
+        assertThat(cached).containsOnly('\0');
+        // A late reader of the replaced secret still gets its value, decrypted again without being cached
+        assertThat(rotated.get()).isEqualTo("old");
+        assertThat(plainText(rotated)).isNull();
+    }
+
+    private static char[] plainText(LazySecret secret) {
+        return (char[]) ReflectionTestUtils.getField(secret, "plainText");
+    }
+
+    private static String encrypt(String value) throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA");
+        cipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+
+        return Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ConfigEntry entry(String key, String value, boolean encrypted) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey(key);
+        entry.setConfigValue(value);
+        entry.setEncrypted(encrypted);
+        return entry;
+    }
+
+}
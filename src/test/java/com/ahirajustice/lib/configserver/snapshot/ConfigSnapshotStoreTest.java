@@ -0,0 +1,132 @@
+package com.ahirajustice.lib.configserver.snapshot;
+
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigSnapshot;
+import com.ahirajustice.lib.configserver.utils.ConfigDigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ConfigSnapshotStoreTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void roundTripsEntriesAndVersion() {
+        ConfigSnapshotStore store = new ConfigSnapshotStore(directory.resolve("snapshot"));
+        store.save(new ConfigSnapshot("7", List.of(entry("PLAIN", "value", false), entry("SECRET", "c2VjcmV0", true))));
+
+        ConfigSnapshot snapshot = store.load();
+
+        assertThat(snapshot.getVersion()).isEqualTo("7");
+        assertThat(snapshot.getConfigEntries()).extracting(ConfigEntry::getConfigKey, ConfigEntry::getConfigValue, ConfigEntry::getEncrypted)
+                .containsExactly(
+                        tuple("PLAIN", "value", false),
+                        tuple("SECRET", "c2VjcmV0", true)
+                );
+    }
+
+    @Test
+    void replacesSnapshotWithoutLeavingTempFiles() throws Exception {
+        Path path = directory.resolve("snapshot");
+        ConfigSnapshotStore store = new ConfigSnapshotStore(path);
+
+        store.save(new ConfigSnapshot("1", List.of(entry("KEY", "old", false))));
+        store.save(new ConfigSnapshot("2", List.of(entry("KEY", "new", false))));
+
+        assertThat(listFiles()).containsExactly(path);
+        assertThat(store.load().getConfigEntries()).extracting(ConfigEntry::getConfigValue).containsExactly("new");
+    }
+
+    @Test
+    void createsMissingDirectory() {
+        Path path = directory.resolve("nested").resolve("snapshot");
+        ConfigSnapshotStore store = new ConfigSnapshotStore(path);
+
+        store.save(new ConfigSnapshot(null, List.of(entry("KEY", "value", false))));
+
+        ConfigSnapshot snapshot = store.load();
+        assertThat(snapshot.getVersion()).isNull();
+        assertThat(snapshot.getConfigEntries()).hasSize(1);
+    }
+
+    @Test
+    void ignoresMissingSnapshot() {
+        assertThat(new ConfigSnapshotStore(directory.resolve("missing")).load()).isNull();
+    }
+
+    @Test
+    void rejectsModifiedBody() throws Exception {
+        Path path = saveSnapshot();
+        String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        Files.write(path, content.replace("\"value\"", "\"tampered\"").getBytes(StandardCharsets.UTF_8));
+
+        assertThat(new ConfigSnapshotStore(path).load()).isNull();
+    }
+
+    @Test
+    void rejectsTruncatedSnapshot() throws Exception {
+        Path path = saveSnapshot();
+        byte[] content = Files.readAllBytes(path);
+
+        Files.write(path, Arrays.copyOf(content, content.length - 5));
+        assertThat(new ConfigSnapshotStore(path).load()).isNull();
+
+        // Cut inside the header, before the checksum line is complete
+        Files.write(path, Arrays.copyOf(content, 40));
+        assertThat(new ConfigSnapshotStore(path).load()).isNull();
+    }
+
+    @Test
+    void rejectsUnknownFormat() throws Exception {
+        Path path = saveSnapshot();
+        String content = new String(Files.readAllBytes(path), StandardCharsets.UTF_8);
+        Files.write(path, content.replace("#config-server-snapshot:1", "#config-server-snapshot:9").getBytes(StandardCharsets.UTF_8));
+
+        assertThat(new ConfigSnapshotStore(path).load()).isNull();
+    }
+
+    @Test
+    void rejectsCorruptedJsonWithValidChecksum() throws Exception {
+        Path path = directory.resolve("snapshot");
+        String body = "[{\"configKey\":";
+        Files.write(path, String.format("#config-server-snapshot:1\n#version:1\n#checksum:sha256:%s\n%s",
+                ConfigDigestUtils.sha256(body.getBytes(StandardCharsets.UTF_8)), body
+        ).getBytes(StandardCharsets.UTF_8));
+
+        assertThat(new ConfigSnapshotStore(path).load()).isNull();
+    }
+
+    private Path saveSnapshot() {
+        Path path = directory.resolve("snapshot");
+        new ConfigSnapshotStore(path).save(new ConfigSnapshot("3", List.of(entry("KEY", "value", false))));
+
+        return path;
+    }
+
+    private List<Path> listFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.collect(Collectors.toList());
+        }
+    }
+
+    private static ConfigEntry entry(String key, String value, boolean encrypted) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey(key);
+        entry.setConfigValue(value);
+        entry.setEncrypted(encrypted);
+        return entry;
+    }
+
+}
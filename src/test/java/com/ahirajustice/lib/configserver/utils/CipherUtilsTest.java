@@ -0,0 +1,170 @@
+package com.ahirajustice.lib.configserver.utils;
+
+import com.ahirajustice.lib.configserver.models.CipherText;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.OAEPParameterSpec;
+import javax.crypto.spec.PSource;
+import java.nio.charset.StandardCharsets;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.spec.MGF1ParameterSpec;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CipherUtilsTest {
+
+    private static KeyPair keyPair;
+    private static String privateKey;
+
+    @BeforeAll
+    static void generateKeys() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        keyPair = generator.generateKeyPair();
+        privateKey = Base64.getEncoder().encodeToString(keyPair.getPrivate().getEncoded());
+    }
+
+    @BeforeEach
+    void clearDataKeys() {
+        dataKeys().clear();
+    }
+
+    @Test
+    void decryptsRsaValue() throws Exception {
+        assertThat(CipherUtils.decryptString(encryptRsa("secret"), privateKey)).isEqualTo("secret");
+    }
+
+    @Test
+    void decryptsEnvelopeValue() throws Exception {
+        Envelope envelope = new Envelope();
+
+        assertThat(CipherUtils.decryptString(envelope.encrypt("secret").encode(), privateKey)).isEqualTo("secret");
+        assertThat(CipherUtils.decryptString(envelope.encrypt("other").encode(), privateKey)).isEqualTo("other");
+        assertThat(dataKeys()).hasSize(1);
+    }
+
+    @Test
+    void sharesDataKeyBetweenBase64AndRawWrappedKey() throws Exception {
+        Envelope envelope = new Envelope();
+
+        assertThat(CipherUtils.decryptString(envelope.encrypt("json").encode(), privateKey)).isEqualTo("json");
+        assertThat(CipherUtils.decrypt(entry("BINARY", envelope.encrypt("binary")), privateKey)).isEqualTo("binary");
+        assertThat(dataKeys()).hasSize(1);
+    }
+
+    @Test
+    void evictsDataKeysOverTheCap() throws Exception {
+        int maxCachedDataKeys = (int) ReflectionTestUtils.getField(CipherUtils.class, "MAX_CACHED_DATA_KEYS");
+
+        for (int i = 0; i < maxCachedDataKeys; i++) {
+            CipherUtils.decryptString(new Envelope().encrypt("value").encode(), privateKey);
+        }
+        assertThat(dataKeys()).hasSize(maxCachedDataKeys);
+
+        Envelope envelope = new Envelope();
+        assertThat(CipherUtils.decryptString(envelope.encrypt("value").encode(), privateKey)).isEqualTo("value");
+        assertThat(dataKeys()).hasSize(1);
+    }
+
+    @Test
+    void decryptsAllBelowAndAboveParallelThreshold() throws Exception {
+        int threshold = (int) ReflectionTestUtils.getField(CipherUtils.class, "PARALLEL_DECRYPT_THRESHOLD");
+
+        for (int encryptedCount : new int[] {threshold - 1, threshold * 4}) {
+            Envelope envelope = new Envelope();
+            List<ConfigEntry> entries = new ArrayList<>();
+            Map<String, String> expected = new LinkedHashMap<>();
+
+            for (int i = 0; i < encryptedCount; i++) {
+                String value = "value-" + i;
+                ConfigEntry plain = new ConfigEntry();
+                plain.setConfigKey("PLAIN_" + i);
+                plain.setConfigValue(value);
+
+                entries.add(plain);
+                entries.add(i % 2 == 0 ? entry("RSA_" + i, encryptRsa(value)) : entry("ENVELOPE_" + i, envelope.encrypt(value)));
+                expected.put(plain.getConfigKey(), value);
+                expected.put(entries.get(entries.size() - 1).getConfigKey(), value);
+            }
+
+            assertThat(CipherUtils.decryptAll(entries, privateKey)).containsExactlyEntriesOf(expected);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Object, SecretKey> dataKeys() {
+        return (Map<Object, SecretKey>) ReflectionTestUtils.getField(CipherUtils.class, "dataKeys");
+    }
+
+    private static String encryptRsa(String value) throws Exception {
+        Cipher cipher = Cipher.getInstance("RSA");
+        cipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic());
+
+        return Base64.getEncoder().encodeToString(cipher.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static ConfigEntry entry(String key, String value) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey(key);
+        entry.setConfigValue(value);
+        entry.setEncrypted(true);
+        return entry;
+    }
+
+    private static ConfigEntry entry(String key, CipherText cipherText) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey(key);
+        entry.setCipherText(cipherText);
+        entry.setEncrypted(true);
+        return entry;
+    }
+
+    /**
+     * Encrypts values the way config-server does for envelope encryption, under one data key wrapped with
+     * the test public key.
+     */
+    private static class Envelope {
+
+        private final SecretKey dataKey;
+        private final byte[] wrappedKey;
+        private int ivCounter;
+
+        private Envelope() throws Exception {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(256);
+            dataKey = generator.generateKey();
+
+            Cipher wrapCipher = Cipher.getInstance("RSA/ECB/OAEPPadding");
+            wrapCipher.init(Cipher.ENCRYPT_MODE, keyPair.getPublic(), new OAEPParameterSpec(
+                    "SHA-256", "MGF1", MGF1ParameterSpec.SHA256, PSource.PSpecified.DEFAULT
+            ));
+            wrappedKey = wrapCipher.doFinal(dataKey.getEncoded());
+        }
+
+        private CipherText encrypt(String value) throws Exception {
+            byte[] iv = new byte[12];
+            iv[0] = (byte) ++ivCounter;
+
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, dataKey, new GCMParameterSpec(128, iv));
+
+            return CipherText.envelope(wrappedKey, iv, cipher.doFinal(value.getBytes(StandardCharsets.UTF_8)));
+        }
+
+    }
+
+}
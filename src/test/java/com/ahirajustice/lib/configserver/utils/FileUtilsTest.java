@@ -0,0 +1,79 @@
+package com.ahirajustice.lib.configserver.utils;
+
+import io.github.cdimascio.dotenv.Dotenv;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileUtilsTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void dotenvRoundTripsValues() throws Exception {
+        Map<String, String> values = new LinkedHashMap<>();
+        values.put("PLAIN", "value");
+        values.put("EMPTY", "");
+        values.put("LEADING_SPACES", "  indented");
+        values.put("TRAILING_SPACES", "padded  ");
+        values.put("TAB", "\tvalue");
+        values.put("QUOTED", "\"quoted\"");
+        values.put("QUOTE", "\"");
+        values.put("INNER_QUOTES", "say \"hi\"");
+        values.put("HASH", "#not-a-comment");
+        values.put("INLINE_HASH", "value # not a comment");
+        values.put("SLASHES", "////not-a-comment");
+        values.put("EQUALS", "a=b=c");
+        values.put("JSON", "{\"key\": [1, 2]}");
+        values.put("UNICODE", "caf\u00e9 \u2603");
+        values.put("dotted.key-name", "value");
+
+        Path file = directory.resolve(".env");
+        FileUtils.writeDotenv(file, values);
+
+        Dotenv dotenv = Dotenv.configure().directory(directory.toString()).filename(".env").load();
+
+        values.forEach((key, value) -> assertThat(dotenv.get(key)).as(key).isEqualTo(value));
+    }
+
+    @Test
+    void rejectsValuesSpanningLines() {
+        assertThat(FileUtils.isDotenvWritable("CERT", "line one\nline two")).isFalse();
+        assertThat(FileUtils.isDotenvWritable("CERT", "line one\r\nline two")).isFalse();
+        assertThat(FileUtils.isDotenvWritable("CERT", "line one\u2028line two")).isFalse();
+        assertThat(FileUtils.isDotenvWritable("BAD KEY", "value")).isFalse();
+        assertThat(FileUtils.isDotenvWritable("GOOD_KEY", "value")).isTrue();
+
+        assertThatThrownBy(() -> FileUtils.writeDotenv(directory.resolve(".env"), Collections.singletonMap("CERT", "a\nb")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void interruptedWriteKeepsPreviousFile() throws Exception {
+        Path file = directory.resolve("snapshot");
+        FileUtils.writeAtomically(file, "previous".getBytes(StandardCharsets.UTF_8));
+
+        assertThatThrownBy(() -> FileUtils.writeAtomically(file, out -> {
+            out.write("partial".getBytes(StandardCharsets.UTF_8));
+            throw new IOException("disk full");
+        })).isInstanceOf(IOException.class);
+
+        assertThat(Files.readAllBytes(file)).isEqualTo("previous".getBytes(StandardCharsets.UTF_8));
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files).containsExactly(file);
+        }
+    }
+
+}
@@ -0,0 +1,84 @@
+package com.ahirajustice.lib.configserver.values;
+
+import com.ahirajustice.lib.configserver.secrets.LazySecrets;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConfigValueRegistryTest {
+
+    private final ConfigValueRegistry registry = new ConfigValueRegistry();
+
+    @Test
+    void handlesSeePublishedValues() {
+        ConfigValue<Integer> poolSize = registry.intValue("POOL_SIZE", 4);
+        ConfigValue<String> name = registry.stringValue("POOL_NAME", "primary");
+
+        assertThat(poolSize.get()).isEqualTo(4);
+        assertThat(name.get()).isEqualTo("primary");
+
+        registry.publish("1", Map.of("POOL_SIZE", "8", "POOL_NAME", "replica"), LazySecrets.EMPTY);
+
+        assertThat(poolSize.get()).isEqualTo(8);
+        assertThat(name.get()).isEqualTo("replica");
+    }
+
+    @Test
+    void handleRegisteredAfterPublishParsesCurrentValues() {
+        registry.publish("1", Map.of("TIMEOUT", "30s"), LazySecrets.EMPTY);
+
+        ConfigValue<Duration> timeout = registry.durationValue("TIMEOUT", Duration.ofSeconds(5));
+
+        assertThat(timeout.get()).isEqualTo(Duration.ofSeconds(30));
+        assertThat(registry.getCurrent().getVersion()).isEqualTo("1");
+    }
+
+    @Test
+    void propagatesVersionWithValues() {
+        ConfigValue<Long> limit = registry.longValue("LIMIT", 0);
+        assertThat(registry.getCurrent().getVersion()).isNull();
+
+        registry.publish("1", Map.of("LIMIT", "10"), LazySecrets.EMPTY);
+        ConfigValues first = registry.getCurrent();
+
+        registry.publish("2", Map.of("LIMIT", "20"), LazySecrets.EMPTY);
+        ConfigValues second = registry.getCurrent();
+
+        assertThat(first.getVersion()).isEqualTo("1");
+        assertThat(first.get("LIMIT")).isEqualTo("10");
+        assertThat(first.getSlot(0)).isEqualTo(10L);
+        assertThat(second.getVersion()).isEqualTo("2");
+        assertThat(second.get("LIMIT")).isEqualTo("20");
+        assertThat(limit.get()).isEqualTo(20L);
+    }
+
+    @Test
+    void earlierSnapshotKeepsItsValuesAfterNextPublish() {
+        ConfigValue<Boolean> flag = registry.booleanValue("FLAG", false);
+
+        registry.publish("1", Map.of("FLAG", "on"), LazySecrets.EMPTY);
+        ConfigValues published = registry.getCurrent();
+
+        registry.publish("2", Map.of(), LazySecrets.EMPTY);
+
+        assertThat(published.get("FLAG")).isEqualTo("on");
+        assertThat(published.containsKey("FLAG")).isTrue();
+        assertThat(flag.get()).isFalse();
+    }
+
+    @Test
+    void fallsBackToDefaultOnMissingOrInvalidValue() {
+        ConfigValue<Integer> poolSize = registry.intValue("POOL_SIZE", 4);
+        ConfigValue<Boolean> flag = registry.booleanValue("FLAG", true);
+
+        registry.publish("1", Map.of("POOL_SIZE", "many", "FLAG", "maybe"), LazySecrets.EMPTY);
+
+        assertThat(poolSize.get()).isEqualTo(4);
+        assertThat(flag.get()).isTrue();
+        assertThat(registry.getCurrent().get("POOL_SIZE")).isEqualTo("many");
+    }
+
+}
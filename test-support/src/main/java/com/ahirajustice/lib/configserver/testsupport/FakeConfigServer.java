@@ -0,0 +1,241 @@
+package com.ahirajustice.lib.configserver.testsupport;
+
+import com.ahirajustice.lib.configserver.constants.SecurityConstants;
+import com.ahirajustice.lib.configserver.http.BinaryConfigCodec;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.utils.ConfigDigestUtils;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.lang3.StringUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded stand-in for config-server serving /api/configs/fetch and /api/configs/digest. Config sets are
+ * registered per client secret key, and each update gets a new version, returned as the ETag, so
+ * conditional fetches are answered with 304 Not Modified. ETags can be turned off to simulate a
+ * config-server that does not send them. Config is served in the binary format to clients
+ * that accept it, and as JSON otherwise. Fetch requests are counted per second to report
+ * fetch QPS, digest requests are counted separately.
+ */
+public class FakeConfigServer implements AutoCloseable {
+
+    private static final String FETCH_PATH = "/api/configs/fetch";
+    private static final String DIGEST_PATH = "/api/configs/digest";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Map<String, ConfigSet> configSets = new ConcurrentHashMap<>();
+    private final Map<Long, AtomicLong> requestsPerSecond = new ConcurrentHashMap<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong digestRequests = new AtomicLong();
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private volatile long latencyMs;
+    private volatile boolean eTagsEnabled = true;
+
+    public FakeConfigServer() throws IOException {
+        this(0, 16);
+    }
+
+    public FakeConfigServer(int port, int threads) throws IOException {
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "fake-config-server");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        this.server.setExecutor(executor);
+        this.server.createContext(FETCH_PATH, this::handleFetch);
+        this.server.createContext(DIGEST_PATH, this::handleDigest);
+        this.server.start();
+    }
+
+    public String getBaseUrl() {
+        return String.format("http://localhost:%d", server.getAddress().getPort());
+    }
+
+    /**
+     * Replaces the config of a client and returns its new version.
+     */
+    public String setConfig(String secretKey, List<ConfigEntry> configEntries) {
+        String version = String.valueOf(versions.incrementAndGet());
+        configSets.put(secretKey, new ConfigSet(version, new ArrayList<>(configEntries)));
+
+        return version;
+    }
+
+    public String getVersion(String secretKey) {
+        ConfigSet configSet = configSets.get(secretKey);
+        return configSet != null ? configSet.version : null;
+    }
+
+    /**
+     * Delays every fetch response, to simulate a slow config-server.
+     */
+    public void setLatencyMs(long latencyMs) {
+        this.latencyMs = latencyMs;
+    }
+
+    public void setETagsEnabled(boolean eTagsEnabled) {
+        this.eTagsEnabled = eTagsEnabled;
+    }
+
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    public long getNotModifiedCount() {
+        return notModified.get();
+    }
+
+    public long getDigestRequestCount() {
+        return digestRequests.get();
+    }
+
+    public long getPeakQps() {
+        return requestsPerSecond.values().stream().mapToLong(AtomicLong::get).max().orElse(0);
+    }
+
+    public Map<Long, Long> getRequestsPerSecond() {
+        Map<Long, Long> counts = new TreeMap<>();
+        requestsPerSecond.forEach((second, count) -> counts.put(second, count.get()));
+
+        return Collections.unmodifiableMap(counts);
+    }
+
+    public void resetStats() {
+        requests.set(0);
+        notModified.set(0);
+        digestRequests.set(0);
+        requestsPerSecond.clear();
+    }
+
+    private void handleFetch(HttpExchange exchange) throws IOException {
+        requests.incrementAndGet();
+        requestsPerSecond.computeIfAbsent(System.currentTimeMillis() / 1000, second -> new AtomicLong()).incrementAndGet();
+
+        try {
+            if (latencyMs > 0) {
+                Thread.sleep(latencyMs);
+            }
+
+            ConfigSet configSet = authorize(exchange);
+
+            if (configSet == null) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+
+            if (eTagsEnabled) {
+                String eTag = String.format("\"%s\"", configSet.version);
+                exchange.getResponseHeaders().set("ETag", eTag);
+
+                if (eTag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                    notModified.incrementAndGet();
+                    exchange.sendResponseHeaders(304, -1);
+                    return;
+                }
+            }
+
+            boolean binary = StringUtils.contains(exchange.getRequestHeaders().getFirst("Accept"), BinaryConfigCodec.MEDIA_TYPE.toString());
+            byte[] body = binary ? configSet.getBinary() : objectMapper.writeValueAsBytes(configSet.entries);
+            exchange.getResponseHeaders().set("Content-Type", binary ? BinaryConfigCodec.MEDIA_TYPE.toString() : "application/json");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Answers with the content digest of the config set, as computed by the lib for its applied entries.
+     */
+    private void handleDigest(HttpExchange exchange) throws IOException {
+        digestRequests.incrementAndGet();
+
+        try {
+            ConfigSet configSet = authorize(exchange);
+
+            if (configSet == null) {
+                exchange.sendResponseHeaders(401, -1);
+                return;
+            }
+
+            byte[] body = configSet.digest.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain");
+            exchange.sendResponseHeaders(200, body.length);
+
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    private ConfigSet authorize(HttpExchange exchange) {
+        String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+        String prefix = SecurityConstants.TOKEN_PREFIX + " ";
+
+        return authorization != null && authorization.startsWith(prefix)
+                ? configSets.get(authorization.substring(prefix.length()))
+                : null;
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private static class ConfigSet {
+
+        private final String version;
+        private final List<ConfigEntry> entries;
+        private final String digest;
+        private volatile byte[] binary;
+
+        private ConfigSet(String version, List<ConfigEntry> entries) {
+            this.version = version;
+            this.entries = entries;
+            this.digest = ConfigDigestUtils.digest(entries);
+        }
+
+        private byte[] getBinary() throws IOException {
+            if (binary == null) {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                BinaryConfigCodec.write(out, entries);
+                binary = out.toByteArray();
+            }
+
+            return binary;
+        }
+
+    }
+
+}
@@ -0,0 +1,122 @@
+package com.ahirajustice.lib.configserver.testsupport;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.Callback;
+import org.apache.kafka.clients.producer.MockProducer;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.apache.kafka.common.record.TimestampType;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+/**
+ * In-memory stand-in for the Kafka broker. Records sent through {@link #getKafkaTemplate()} are delivered
+ * to every subscriber of their topic, each on its own thread and in send order, like independent
+ * consumers. Keys, headers and timestamps are kept, so the lib's listeners can consume them unchanged.
+ */
+public class InMemoryKafka implements AutoCloseable {
+
+    private final Map<String, List<Subscription>> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong offsets = new AtomicLong();
+    private final KafkaTemplate<String, String> kafkaTemplate;
+
+    public InMemoryKafka() {
+        DeliveringProducer producer = new DeliveringProducer();
+        this.kafkaTemplate = new KafkaTemplate<>(() -> producer);
+    }
+
+    public KafkaTemplate<String, String> getKafkaTemplate() {
+        return kafkaTemplate;
+    }
+
+    /**
+     * Subscribes to a topic. The returned Runnable removes the subscription.
+     */
+    public Runnable subscribe(String topic, Consumer<ConsumerRecord<String, String>> listener) {
+        Subscription subscription = new Subscription(listener);
+        subscriptions.computeIfAbsent(topic, key -> new CopyOnWriteArrayList<>()).add(subscription);
+
+        return () -> {
+            subscriptions.get(topic).remove(subscription);
+            subscription.executor.shutdown();
+        };
+    }
+
+    public void send(ProducerRecord<String, String> record) {
+        kafkaTemplate.send(record);
+    }
+
+    private void deliver(ProducerRecord<String, String> record) {
+        long timestamp = record.timestamp() != null ? record.timestamp() : System.currentTimeMillis();
+        int partition = record.partition() != null ? record.partition() : 0;
+
+        ConsumerRecord<String, String> consumerRecord = new ConsumerRecord<>(
+                record.topic(), partition, offsets.getAndIncrement(), timestamp, TimestampType.CREATE_TIME, null,
+                ConsumerRecord.NULL_SIZE, ConsumerRecord.NULL_SIZE, record.key(), record.value(), record.headers()
+        );
+
+        for (Subscription subscription : subscriptions.getOrDefault(record.topic(), List.of())) {
+            subscription.executor.execute(() -> subscription.listener.accept(consumerRecord));
+        }
+    }
+
+    @Override
+    public void close() {
+        subscriptions.values().forEach(topicSubscriptions -> topicSubscriptions.forEach(subscription -> subscription.executor.shutdownNow()));
+        subscriptions.clear();
+    }
+
+    private class DeliveringProducer extends MockProducer<String, String> {
+
+        private DeliveringProducer() {
+            super(true, new StringSerializer(), new StringSerializer());
+        }
+
+        @Override
+        public synchronized Future<RecordMetadata> send(ProducerRecord<String, String> record, Callback callback) {
+            Future<RecordMetadata> result = super.send(record, callback);
+            deliver(record);
+
+            return result;
+        }
+
+        /**
+         * KafkaTemplate closes the producer after each send, so closing is ignored to keep it reusable.
+         */
+        @Override
+        public void close() {
+        }
+
+        @Override
+        public void close(Duration timeout) {
+        }
+
+    }
+
+    private static class Subscription {
+
+        private final Consumer<ConsumerRecord<String, String>> listener;
+        private final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "in-memory-kafka-consumer");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private Subscription(Consumer<ConsumerRecord<String, String>> listener) {
+            this.listener = listener;
+        }
+
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.ahirajustice.lib.configserver.testsupport.load;
+
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.kafka.core.KafkaTemplate;
+
+/**
+ * The application each {@link SimulatedPod} runs, and the lib restarts. It provides the in-memory
+ * KafkaTemplate used for rollout coordination, takes the pod's restart time to start, and reports every
+ * start to its pod.
+ */
+@Configuration(proxyBeanMethods = false)
+public class PodApplication {
+
+    @Bean
+    public KafkaTemplate<String, String> kafkaTemplate(Environment environment) {
+        return getPod(environment).getKafkaTemplate();
+    }
+
+    @Bean
+    public ApplicationListener<ApplicationStartedEvent> podStartedListener(Environment environment) throws InterruptedException {
+        SimulatedPod pod = getPod(environment);
+        Thread.sleep(pod.getRestartMs());
+
+        return event -> pod.onStarted(event.getApplicationContext());
+    }
+
+    private static SimulatedPod getPod(Environment environment) {
+        return SimulatedPod.get(environment.getRequiredProperty(SimulatedPod.POD_PROPERTY));
+    }
+
+}
@@ -0,0 +1,60 @@
+package com.ahirajustice.lib.configserver.testsupport.load;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Defines its own copy of every class of config-server-lib instead of delegating to its parent, so each
+ * {@link SimulatedPod} gets its own static ConfigServer. All other classes, including Spring, Kafka and
+ * this module, are shared with the parent.
+ */
+class PodClassLoader extends ClassLoader {
+
+    private static final String LIB_PACKAGE = "com.ahirajustice.lib.configserver.";
+    private static final String TEST_SUPPORT_PACKAGE = "com.ahirajustice.lib.configserver.testsupport.";
+
+    static {
+        registerAsParallelCapable();
+    }
+
+    PodClassLoader(ClassLoader parent) {
+        super(parent);
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        if (!name.startsWith(LIB_PACKAGE) || name.startsWith(TEST_SUPPORT_PACKAGE)) {
+            return super.loadClass(name, resolve);
+        }
+
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> loadedClass = findLoadedClass(name);
+
+            if (loadedClass == null) {
+                loadedClass = findClass(name);
+            }
+
+            if (resolve) {
+                resolveClass(loadedClass);
+            }
+
+            return loadedClass;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        try (InputStream in = getParent().getResourceAsStream(name.replace('.', '/') + ".class")) {
+            if (in == null) {
+                throw new ClassNotFoundException(name);
+            }
+
+            byte[] bytes = in.readAllBytes();
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+        catch (IOException ex) {
+            throw new ClassNotFoundException(name, ex);
+        }
+    }
+
+}
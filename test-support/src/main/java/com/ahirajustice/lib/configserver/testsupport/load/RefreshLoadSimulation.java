@@ -0,0 +1,162 @@
+package com.ahirajustice.lib.configserver.testsupport.load;
+
+import com.ahirajustice.lib.configserver.constants.KafkaConstants;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.testsupport.FakeConfigServer;
+import com.ahirajustice.lib.configserver.testsupport.InMemoryKafka;
+import org.apache.kafka.clients.producer.ProducerRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+
+/**
+ * Simulates a fleet of pods receiving refresh broadcasts for one service, against a {@link FakeConfigServer}
+ * and an {@link InMemoryKafka}, and reports end-to-end refresh latency, fetch load on the config server and
+ * restart counts. Each pod runs the lib in RESTART mode, see {@link SimulatedPod}. Options are passed as
+ * key=value arguments, see {@link #DEFAULTS}.
+ */
+public class RefreshLoadSimulation {
+
+    static final String SECRET_KEY = "load-test";
+    private static final String TOPIC = "load-test";
+
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("pods", "50"),
+            Map.entry("broadcasts", "20"),
+            Map.entry("intervalMs", "200"),
+            Map.entry("keys", "100"),
+            Map.entry("windowMs", "1000"),
+            Map.entry("fetchLatencyMs", "20"),
+            Map.entry("restartMs", "100"),
+            Map.entry("rolloutMode", "NONE"),
+            Map.entry("rolloutWindowMs", "0"),
+            Map.entry("rolloutMaxConcurrent", "0"),
+            Map.entry("eTags", "true"),
+            Map.entry("timeoutMs", "120000")
+    );
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !DEFAULTS.containsKey(option[0])) {
+                throw new IllegalArgumentException(String.format("Unknown option %s, expected one of %s", arg, DEFAULTS.keySet()));
+            }
+            options.put(option[0], option[1]);
+        }
+
+        int pods = Integer.parseInt(options.get("pods"));
+        int broadcasts = Integer.parseInt(options.get("broadcasts"));
+        long intervalMs = Long.parseLong(options.get("intervalMs"));
+        int keys = Integer.parseInt(options.get("keys"));
+        long timeoutMs = Long.parseLong(options.get("timeoutMs"));
+
+        try (FakeConfigServer server = new FakeConfigServer(); InMemoryKafka kafka = new InMemoryKafka()) {
+            server.setLatencyMs(Long.parseLong(options.get("fetchLatencyMs")));
+            server.setETagsEnabled(Boolean.parseBoolean(options.get("eTags")));
+            server.setConfig(SECRET_KEY, entries(keys, 0));
+
+            Map<String, String> settings = Map.of(
+                    "CONFIG_SERVER_REFRESH_WINDOW_MS", options.get("windowMs"),
+                    "CONFIG_SERVER_ROLLOUT_MODE", options.get("rolloutMode").toUpperCase(Locale.ROOT),
+                    "CONFIG_SERVER_ROLLOUT_WINDOW_MS", options.get("rolloutWindowMs"),
+                    "CONFIG_SERVER_ROLLOUT_MAX_CONCURRENT", options.get("rolloutMaxConcurrent")
+            );
+
+            List<SimulatedPod> fleet = new ArrayList<>();
+            for (int i = 0; i < pods; i++) {
+                SimulatedPod pod = new SimulatedPod(String.format("pod-%d", i), server.getBaseUrl(), SECRET_KEY, settings, Long.parseLong(options.get("restartMs")), kafka);
+                pod.start();
+                fleet.add(pod);
+            }
+
+            server.resetStats();
+            long start = System.currentTimeMillis();
+            String version = null;
+
+            for (int i = 1; i <= broadcasts; i++) {
+                version = server.setConfig(SECRET_KEY, entries(keys, i));
+                kafka.send(broadcast(fleet.get(i % pods).getName(), version));
+                Thread.sleep(intervalMs);
+            }
+
+            String lastVersion = version;
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (fleet.stream().anyMatch(pod -> !pod.isConverged(lastVersion)) && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+
+            report(options, fleet, server, System.currentTimeMillis() - start, lastVersion);
+            fleet.forEach(SimulatedPod::close);
+        }
+
+        System.exit(0);
+    }
+
+    static List<ConfigEntry> entries(int keys, int generation) {
+        List<ConfigEntry> entries = new ArrayList<>();
+
+        for (int i = 0; i < keys; i++) {
+            ConfigEntry entry = new ConfigEntry();
+            entry.setConfigKey(String.format("KEY_%d", i));
+            entry.setConfigValue(String.format("value-%d-%d", i, generation));
+            entry.setEncrypted(false);
+            entries.add(entry);
+        }
+
+        return entries;
+    }
+
+    static ProducerRecord<String, String> broadcast(String sender, String version) {
+        ProducerRecord<String, String> record = new ProducerRecord<>(TOPIC, null, System.currentTimeMillis(), null, sender);
+        record.headers().add(KafkaConstants.ORIGIN_HEADER, sender.getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaConstants.CORRELATION_ID_HEADER, UUID.randomUUID().toString().getBytes(StandardCharsets.UTF_8));
+        record.headers().add(KafkaConstants.VERSION_HEADER, version.getBytes(StandardCharsets.UTF_8));
+
+        return record;
+    }
+
+    private static void report(Map<String, String> options, List<SimulatedPod> fleet, FakeConfigServer server, long durationMs, String lastVersion) {
+        List<Long> latencies = new ArrayList<>();
+        List<Integer> restarts = new ArrayList<>();
+        long refreshes = 0;
+        long converged = 0;
+
+        for (SimulatedPod pod : fleet) {
+            latencies.addAll(pod.getLatenciesMs());
+            restarts.add(pod.getRestarts());
+            refreshes += pod.getExecutedRefreshes();
+            converged += pod.isConverged(lastVersion) ? 1 : 0;
+        }
+
+        Collections.sort(latencies);
+        Collections.sort(restarts);
+
+        System.out.printf("options            %s%n", new TreeMap<>(options));
+        System.out.printf("duration           %d ms, %d/%d pods converged on version %s%n", durationMs, converged, fleet.size(), lastVersion);
+        System.out.printf("refresh latency    p50 %d ms, p95 %d ms, p99 %d ms, max %d ms (%d samples)%n",
+                percentile(latencies, 50), percentile(latencies, 95), percentile(latencies, 99), percentile(latencies, 100), latencies.size());
+        System.out.printf("fetches            %d total, %d not modified, peak %d/s, avg %.1f/s%n",
+                server.getRequestCount(), server.getNotModifiedCount(), server.getPeakQps(), server.getRequestCount() * 1000.0 / Math.max(1, durationMs));
+        System.out.printf("refreshes          %d executed across the fleet%n", refreshes);
+        System.out.printf("restarts per pod   min %d, median %d, max %d, total %d%n",
+                restarts.get(0), restarts.get(restarts.size() / 2), restarts.get(restarts.size() - 1), restarts.stream().mapToInt(Integer::intValue).sum());
+    }
+
+    private static <T extends Comparable<T>> T percentile(List<T> sorted, int percentile) {
+        if (sorted.isEmpty()) {
+            return null;
+        }
+
+        int index = (int) Math.ceil(percentile / 100.0 * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(index, sorted.size() - 1)));
+    }
+
+}
@@ -0,0 +1,305 @@
+package com.ahirajustice.lib.configserver.testsupport.load;
+
+import com.ahirajustice.lib.configserver.constants.KafkaConstants;
+import com.ahirajustice.lib.configserver.testsupport.InMemoryKafka;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.common.header.Header;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.kafka.core.KafkaTemplate;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * One pod of the load simulation, running the lib itself: its own copy of ConfigServer, loaded by a
+ * {@link PodClassLoader}, starts a {@link PodApplication} and fetches config from the fake config-server.
+ * Broadcasts from the {@link InMemoryKafka} are handed to the lib's refresh listener, so refreshes go
+ * through the same coalescing, rollout, fetch and restart path as in a real pod.
+ * <p>
+ * Settings are passed as the environment variables the lib reads, e.g. CONFIG_SERVER_REFRESH_WINDOW_MS.
+ */
+public class SimulatedPod implements AutoCloseable {
+
+    static final String POD_PROPERTY = "simulation.pod";
+
+    private static final String CONFIG_SERVER_CLASS = "com.ahirajustice.lib.configserver.ConfigServer";
+    private static final String REFRESH_LISTENER_CLASS = "com.ahirajustice.lib.configserver.listeners.ConfigRefreshListener";
+    private static final String ROLLOUT_LISTENER_CLASS = "com.ahirajustice.lib.configserver.listeners.RolloutListener";
+
+    private static final Map<String, SimulatedPod> pods = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final Map<String, String> environment = new HashMap<>();
+    private final long restartMs;
+    private final InMemoryKafka kafka;
+    private final PodClassLoader classLoader;
+    private final Class<?> configServer;
+
+    private final List<Runnable> subscriptions = new ArrayList<>();
+    private final List<Broadcast> pendingBroadcasts = new ArrayList<>();
+    private final List<Long> latenciesMs = Collections.synchronizedList(new ArrayList<>());
+    private final AtomicInteger starts = new AtomicInteger();
+    private volatile String appliedVersion;
+    private volatile ConfigurableApplicationContext context;
+
+    public SimulatedPod(String name, String baseUrl, String secretKey, Map<String, String> settings, long restartMs, InMemoryKafka kafka) {
+        this.name = name;
+        this.restartMs = restartMs;
+        this.kafka = kafka;
+        this.classLoader = new PodClassLoader(SimulatedPod.class.getClassLoader());
+
+        environment.put("HOSTNAME", name);
+        environment.put("CONFIG_SERVER_SECRET_KEY", secretKey);
+        environment.put("CONFIG_SERVER_BASE_URL", baseUrl);
+        environment.put("CONFIG_SERVER_PRIVATE_KEY", "unused");
+        environment.put("CONFIG_SERVER_KAFKA_BOOTSTRAP_SERVERS", "in-memory");
+        environment.put("CONFIG_SERVER_KAFKA_SECURITY_PROTOCOL", "PLAINTEXT");
+        environment.put("CONFIG_SERVER_KAFKA_SASL_MECHANISM", "PLAIN");
+        environment.put("CONFIG_SERVER_KAFKA_SASL_JAAS_CONFIG", "unused");
+        environment.put("CONFIG_SERVER_BACKEND", "MEMORY");
+        environment.put("CONFIG_SERVER_HTTP_MAX_CONNECTIONS", "1");
+        environment.putAll(settings);
+
+        try {
+            this.configServer = classLoader.loadClass(CONFIG_SERVER_CLASS);
+        }
+        catch (ClassNotFoundException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    static SimulatedPod get(String name) {
+        SimulatedPod pod = pods.get(name);
+
+        if (pod == null) {
+            throw new IllegalStateException(String.format("Unknown simulated pod %s", name));
+        }
+
+        return pod;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    long getRestartMs() {
+        return restartMs;
+    }
+
+    KafkaTemplate<String, String> getKafkaTemplate() {
+        return kafka.getKafkaTemplate();
+    }
+
+    /**
+     * Starts the application, which loads config, and subscribes the lib's listeners to the refresh and
+     * rollout topics.
+     */
+    public void start() {
+        pods.put(name, this);
+
+        withClassLoader(() -> {
+            invokeStatic("useEnvironment", new Class<?>[] {Map.class}, environment);
+            SpringApplication.run(new Class<?>[] {PodApplication.class},
+                    new String[] {
+                            "--spring.main.web-application-type=none",
+                            "--spring.main.banner-mode=off",
+                            "--spring.main.log-startup-info=false",
+                            "--spring.main.register-shutdown-hook=false",
+                            "--logging.level.root=WARN",
+                            String.format("--%s=%s", POD_PROPERTY, name)
+                    });
+
+            subscribe((String) invokeStatic("getTopic"), REFRESH_LISTENER_CLASS, "listenForRestart", this::onBroadcast);
+            subscribe((String) invokeStatic("getRolloutTopic"), ROLLOUT_LISTENER_CLASS, "listenForRolloutEvents", record -> {});
+            return null;
+        });
+    }
+
+    /**
+     * Stands in for the Kafka listener container: records of the topic are handed to the lib's listener,
+     * after the given observer.
+     */
+    private void subscribe(String topic, String listenerClass, String listenerMethod, Consumer<ConsumerRecord<String, String>> observer) throws ReflectiveOperationException {
+        Object listener = classLoader.loadClass(listenerClass).getConstructor().newInstance();
+        Method method = listener.getClass().getMethod(listenerMethod, ConsumerRecord.class);
+
+        subscriptions.add(kafka.subscribe(topic, record -> withClassLoader(() -> {
+            observer.accept(record);
+            return method.invoke(listener, record);
+        })));
+    }
+
+    /**
+     * Records the broadcast so its latency is measured once the pod runs a version covering it.
+     */
+    private void onBroadcast(ConsumerRecord<String, String> record) {
+        Header version = record.headers().lastHeader(KafkaConstants.VERSION_HEADER);
+
+        synchronized (pendingBroadcasts) {
+            pendingBroadcasts.add(new Broadcast(version != null ? new String(version.value(), StandardCharsets.UTF_8) : null, record.timestamp()));
+        }
+
+        if (appliedVersion != null) {
+            recordLatencies(appliedVersion, false);
+        }
+    }
+
+    /**
+     * Called by the {@link PodApplication} every time it has started, first on start and then on every
+     * restart made by the lib to apply config.
+     */
+    void onStarted(ConfigurableApplicationContext applicationContext) {
+        context = applicationContext;
+        starts.incrementAndGet();
+        appliedVersion = withClassLoader(() -> (String) invokeStatic("getConfigVersion"));
+        recordLatencies(appliedVersion, true);
+    }
+
+    /**
+     * Records the latency of every pending broadcast covered by the applied version. Without versions,
+     * when config-server sends no ETag, every broadcast received before a start is taken as covered by it.
+     */
+    private void recordLatencies(String version, boolean started) {
+        long appliedVersionNumber = NumberUtils.toLong(version, -1);
+        long now = System.currentTimeMillis();
+
+        synchronized (pendingBroadcasts) {
+            Iterator<Broadcast> iterator = pendingBroadcasts.iterator();
+
+            while (iterator.hasNext()) {
+                Broadcast broadcast = iterator.next();
+                long broadcastVersion = NumberUtils.toLong(broadcast.version, -1);
+                boolean covered = appliedVersionNumber >= 0 && broadcastVersion >= 0
+                        ? broadcastVersion <= appliedVersionNumber
+                        : started;
+
+                if (covered) {
+                    latenciesMs.add(now - broadcast.timestamp);
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    /**
+     * Whether the pod runs the given version or, without versions, has caught up with every broadcast it
+     * received.
+     */
+    public boolean isConverged(String version) {
+        long versionNumber = NumberUtils.toLong(version, -1);
+        long appliedVersionNumber = NumberUtils.toLong(appliedVersion, -1);
+
+        if (versionNumber >= 0 && appliedVersionNumber >= 0) {
+            return appliedVersionNumber >= versionNumber;
+        }
+
+        synchronized (pendingBroadcasts) {
+            return starts.get() > 0 && pendingBroadcasts.isEmpty();
+        }
+    }
+
+    public String getAppliedVersion() {
+        return appliedVersion;
+    }
+
+    public List<Long> getLatenciesMs() {
+        synchronized (latenciesMs) {
+            return new ArrayList<>(latenciesMs);
+        }
+    }
+
+    public int getRestarts() {
+        return Math.max(0, starts.get() - 1);
+    }
+
+    public long getExecutedRefreshes() {
+        return withClassLoader(() -> {
+            Object refreshScheduler = invokeStatic("getRefreshScheduler");
+            return (Long) refreshScheduler.getClass().getMethod("getExecutedRefreshes").invoke(refreshScheduler);
+        });
+    }
+
+    private Object invokeStatic(String method) throws ReflectiveOperationException {
+        return invokeStatic(method, new Class<?>[0]);
+    }
+
+    /**
+     * Invokes a static method of the pod's ConfigServer, which may be package-private like useEnvironment.
+     */
+    private Object invokeStatic(String method, Class<?>[] parameterTypes, Object... args) throws ReflectiveOperationException {
+        Method declaredMethod = configServer.getDeclaredMethod(method, parameterTypes);
+        declaredMethod.setAccessible(true);
+
+        return declaredMethod.invoke(null, args);
+    }
+
+    /**
+     * Runs the action with the pod's class loader as context class loader, so the Spring applications it
+     * starts, and the threads the lib creates, load the pod's copy of the lib.
+     */
+    private <T> T withClassLoader(ReflectiveSupplier<T> action) {
+        Thread thread = Thread.currentThread();
+        ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(classLoader);
+
+        try {
+            return action.get();
+        }
+        catch (InvocationTargetException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+
+            throw new IllegalStateException(ex.getCause());
+        }
+        catch (ReflectiveOperationException ex) {
+            throw new IllegalStateException(ex);
+        }
+        finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    @Override
+    public void close() {
+        subscriptions.forEach(Runnable::run);
+        subscriptions.clear();
+
+        if (context != null) {
+            context.close();
+        }
+
+        pods.remove(name);
+    }
+
+    private interface ReflectiveSupplier<T> {
+
+        T get() throws ReflectiveOperationException;
+
+    }
+
+    private static class Broadcast {
+
+        private final String version;
+        private final long timestamp;
+
+        private Broadcast(String version, long timestamp) {
+            this.version = version;
+            this.timestamp = timestamp;
+        }
+
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.ahirajustice.lib.configserver.testsupport;
+
+import com.ahirajustice.lib.configserver.client.ConfigClient;
+import com.ahirajustice.lib.configserver.http.ConfigServerHttpClient;
+import com.ahirajustice.lib.configserver.models.ConfigEntry;
+import com.ahirajustice.lib.configserver.models.ConfigFetchResult;
+import com.ahirajustice.lib.configserver.models.HttpClientSettings;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FakeConfigServerTest {
+
+    private static final String SECRET_KEY = "secret";
+
+    private FakeConfigServer server;
+    private ConfigClient client;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeConfigServer();
+        client = new ConfigClient("test", server.getBaseUrl(), SECRET_KEY, null, new ConfigServerHttpClient(HttpClientSettings.builder()
+                .connectTimeoutMs(5000)
+                .readTimeoutMs(5000)
+                .maxConnections(1)
+                .maxRetries(0)
+                .circuitBreakerThreshold(5)
+                .circuitBreakerCooldownMs(5000)
+                .build()), null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.close();
+    }
+
+    @Test
+    void answersConditionalFetchWithNotModified() {
+        String version = server.setConfig(SECRET_KEY, List.of(entry("KEY", "value")));
+
+        ConfigFetchResult first = client.fetch();
+        ConfigFetchResult second = client.fetch();
+
+        assertThat(first.isModified()).isTrue();
+        assertThat(first.getVersion()).isEqualTo(version);
+        assertThat(first.getConfigEntries()).extracting(ConfigEntry::getConfigValue).containsExactly("value");
+        assertThat(second.isModified()).isFalse();
+        assertThat(server.getRequestCount()).isEqualTo(2);
+        assertThat(server.getNotModifiedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void servesNewConfigUnderNewVersion() {
+        server.setConfig(SECRET_KEY, List.of(entry("KEY", "value")));
+        client.fetch();
+
+        String version = server.setConfig(SECRET_KEY, List.of(entry("KEY", "changed")));
+        ConfigFetchResult result = client.fetch();
+
+        assertThat(result.isModified()).isTrue();
+        assertThat(result.getVersion()).isEqualTo(version);
+        assertThat(result.getConfigEntries()).extracting(ConfigEntry::getConfigValue).containsExactly("changed");
+    }
+
+    @Test
+    void sendsNoVersionWhenETagsAreDisabled() {
+        server.setETagsEnabled(false);
+        server.setConfig(SECRET_KEY, List.of(entry("KEY", "value")));
+
+        ConfigFetchResult first = client.fetch();
+        ConfigFetchResult second = client.fetch();
+
+        assertThat(first.getVersion()).isNull();
+        assertThat(second.isModified()).isFalse();
+        assertThat(server.getNotModifiedCount()).isZero();
+    }
+
+    @Test
+    void servesDigestOfConfig() {
+        server.setConfig(SECRET_KEY, List.of(entry("KEY", "value")));
+        client.fetch();
+
+        assertThat(client.isInSync(client.fetchDigest())).isTrue();
+
+        server.setConfig(SECRET_KEY, List.of(entry("KEY", "changed")));
+
+        assertThat(client.isInSync(client.fetchDigest())).isFalse();
+        assertThat(server.getDigestRequestCount()).isEqualTo(2);
+    }
+
+    private static ConfigEntry entry(String key, String value) {
+        ConfigEntry entry = new ConfigEntry();
+        entry.setConfigKey(key);
+        entry.setConfigValue(value);
+        entry.setEncrypted(false);
+
+        return entry;
+    }
+
+}
@@ -0,0 +1,88 @@
+package com.ahirajustice.lib.configserver.testsupport;
+
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class InMemoryKafkaTest {
+
+    @Test
+    void deliversRecordsToEverySubscriberInSendOrder() throws Exception {
+        try (InMemoryKafka kafka = new InMemoryKafka()) {
+            List<String> first = new CopyOnWriteArrayList<>();
+            List<String> second = new CopyOnWriteArrayList<>();
+            CountDownLatch delivered = new CountDownLatch(6);
+
+            kafka.subscribe("topic", record -> {
+                first.add(record.value());
+                delivered.countDown();
+            });
+            kafka.subscribe("topic", record -> {
+                second.add(record.value());
+                delivered.countDown();
+            });
+            kafka.subscribe("other", record -> delivered.countDown());
+
+            for (int i = 0; i < 3; i++) {
+                kafka.send(new ProducerRecord<>("topic", String.valueOf(i)));
+            }
+
+            assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(first).containsExactly("0", "1", "2");
+            assertThat(second).containsExactly("0", "1", "2");
+        }
+    }
+
+    @Test
+    void keepsKeyHeadersAndTimestamp() throws Exception {
+        try (InMemoryKafka kafka = new InMemoryKafka()) {
+            List<ConsumerRecord<String, String>> records = new CopyOnWriteArrayList<>();
+            CountDownLatch delivered = new CountDownLatch(1);
+
+            kafka.subscribe("topic", record -> {
+                records.add(record);
+                delivered.countDown();
+            });
+
+            ProducerRecord<String, String> record = new ProducerRecord<>("topic", null, 1234L, "key", "value");
+            record.headers().add("header", "header-value".getBytes(StandardCharsets.UTF_8));
+            kafka.getKafkaTemplate().send(record);
+
+            assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+            assertThat(records.get(0).key()).isEqualTo("key");
+            assertThat(records.get(0).timestamp()).isEqualTo(1234L);
+            assertThat(new String(records.get(0).headers().lastHeader("header").value(), StandardCharsets.UTF_8)).isEqualTo("header-value");
+        }
+    }
+
+    @Test
+    void stopsDeliveringOnceUnsubscribed() throws Exception {
+        try (InMemoryKafka kafka = new InMemoryKafka()) {
+            List<String> values = new CopyOnWriteArrayList<>();
+            CountDownLatch delivered = new CountDownLatch(1);
+
+            Runnable unsubscribe = kafka.subscribe("topic", record -> {
+                values.add(record.value());
+                delivered.countDown();
+            });
+
+            kafka.send(new ProducerRecord<>("topic", "first"));
+            assertThat(delivered.await(5, TimeUnit.SECONDS)).isTrue();
+
+            unsubscribe.run();
+            kafka.send(new ProducerRecord<>("topic", "second"));
+            Thread.sleep(200);
+
+            assertThat(values).containsExactly("first");
+        }
+    }
+
+}
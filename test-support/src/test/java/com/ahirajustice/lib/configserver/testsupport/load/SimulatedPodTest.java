@@ -0,0 +1,121 @@
+package com.ahirajustice.lib.configserver.testsupport.load;
+
+import com.ahirajustice.lib.configserver.testsupport.FakeConfigServer;
+import com.ahirajustice.lib.configserver.testsupport.InMemoryKafka;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static com.ahirajustice.lib.configserver.testsupport.load.RefreshLoadSimulation.SECRET_KEY;
+import static com.ahirajustice.lib.configserver.testsupport.load.RefreshLoadSimulation.broadcast;
+import static com.ahirajustice.lib.configserver.testsupport.load.RefreshLoadSimulation.entries;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SimulatedPodTest {
+
+    private FakeConfigServer server;
+    private InMemoryKafka kafka;
+    private final List<SimulatedPod> pods = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        server = new FakeConfigServer();
+        kafka = new InMemoryKafka();
+    }
+
+    @AfterEach
+    void tearDown() {
+        pods.forEach(SimulatedPod::close);
+        kafka.close();
+        server.close();
+    }
+
+    @Test
+    void loadsConfigOnStart() {
+        String version = server.setConfig(SECRET_KEY, entries(3, 0));
+
+        SimulatedPod pod = start("pod-0");
+
+        assertThat(pod.getAppliedVersion()).isEqualTo(version);
+        assertThat(pod.getRestarts()).isZero();
+        assertThat(server.getRequestCount()).isEqualTo(1);
+    }
+
+    @Test
+    void restartsEveryPodThroughTheLibOnBroadcast() throws Exception {
+        server.setConfig(SECRET_KEY, entries(3, 0));
+        SimulatedPod first = start("pod-0");
+        SimulatedPod second = start("pod-1");
+
+        String version = server.setConfig(SECRET_KEY, entries(3, 1));
+        kafka.send(broadcast(first.getName(), version));
+
+        awaitCondition(() -> first.isConverged(version) && second.isConverged(version));
+
+        for (SimulatedPod pod : List.of(first, second)) {
+            assertThat(pod.getAppliedVersion()).isEqualTo(version);
+            assertThat(pod.getRestarts()).isEqualTo(1);
+            assertThat(pod.getExecutedRefreshes()).isEqualTo(1);
+            assertThat(pod.getLatenciesMs()).hasSize(1);
+        }
+    }
+
+    @Test
+    void coalescesBroadcastsIntoOneRestart() throws Exception {
+        server.setConfig(SECRET_KEY, entries(3, 0));
+        SimulatedPod pod = start("pod-0");
+
+        String version = null;
+        for (int i = 1; i <= 3; i++) {
+            version = server.setConfig(SECRET_KEY, entries(3, i));
+            kafka.send(broadcast("sender", version));
+        }
+
+        String lastVersion = version;
+        awaitCondition(() -> pod.isConverged(lastVersion));
+
+        assertThat(pod.getRestarts()).isEqualTo(1);
+        assertThat(pod.getLatenciesMs()).hasSize(3);
+    }
+
+    @Test
+    void convergesWithoutVersionsWhenConfigServerSendsNoETag() throws Exception {
+        server.setETagsEnabled(false);
+        server.setConfig(SECRET_KEY, entries(3, 0));
+        SimulatedPod pod = start("pod-0");
+
+        assertThat(pod.getAppliedVersion()).isNull();
+
+        String version = server.setConfig(SECRET_KEY, entries(3, 1));
+        kafka.send(broadcast("sender", version));
+
+        awaitCondition(() -> pod.getRestarts() == 1 && pod.isConverged(version));
+
+        assertThat(pod.getAppliedVersion()).isNull();
+        assertThat(pod.getLatenciesMs()).hasSize(1);
+    }
+
+    private SimulatedPod start(String name) {
+        SimulatedPod pod = new SimulatedPod(name, server.getBaseUrl(), SECRET_KEY, Map.of("CONFIG_SERVER_REFRESH_WINDOW_MS", "200"), 0, kafka);
+        pods.add(pod);
+        pod.start();
+
+        return pod;
+    }
+
+    private static void awaitCondition(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 20000;
+
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+}